@@ -0,0 +1,149 @@
+package Question3;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard model of the Tetris playing field.
+ * Each row is stored as a single int mask where bit j is set when column j is filled,
+ * so collision checks, line detection and line clears work on whole rows at once.
+ */
+class BitBoard {
+    private final int width; // Number of columns (at most 31 so a row fits in an int)
+    private final int height; // Number of rows
+    private final int fullMask; // Mask of a completely filled row
+    private final int[] rows; // One mask per row, row 0 is the top of the board
+
+    /**
+     * Constructor to create an empty board
+     *
+     * @param width The number of columns
+     * @param height The number of rows
+     */
+    public BitBoard(int width, int height) {
+        if (width < 1 || width > 31) { // A row has to fit in the low 31 bits of an int
+            throw new IllegalArgumentException("Board width must be between 1 and 31: " + width);
+        }
+        this.width = width;
+        this.height = height;
+        this.fullMask = (1 << width) - 1; // Set the lowest 'width' bits
+        this.rows = new int[height];
+    }
+
+    /**
+     * Builds the row masks of a shape matrix
+     * Bit j of mask i is set when shape[i][j] is non-zero
+     *
+     * @param shape The 2D array representing a block's shape
+     * @return One mask per shape row
+     */
+    public static int[] toRowMasks(int[][] shape) {
+        int[] masks = new int[shape.length];
+        for (int i = 0; i < shape.length; i++) { // Iterate through rows
+            for (int j = 0; j < shape[i].length; j++) { // Iterate through columns
+                if (shape[i][j] != 0) {
+                    masks[i] |= 1 << j; // Mark the filled column
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Checks whether a piece overlaps filled cells or leaves the board
+     *
+     * @param pieceRows Row masks of the piece
+     * @param pieceWidth Width of the piece's bounding box
+     * @param row Board row of the piece's top edge
+     * @param col Board column of the piece's left edge
+     * @return true if the piece can not be placed there
+     */
+    public boolean collides(int[] pieceRows, int pieceWidth, int row, int col) {
+        if (col < 0 || col + pieceWidth > width || row < 0 || row + pieceRows.length > height) {
+            return true; // Out of bounds
+        }
+        for (int i = 0; i < pieceRows.length; i++) {
+            if ((rows[row + i] & (pieceRows[i] << col)) != 0) { // Any overlapping bit is a collision
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Locks a piece into the board
+     *
+     * @param pieceRows Row masks of the piece
+     * @param row Board row of the piece's top edge
+     * @param col Board column of the piece's left edge
+     */
+    public void place(int[] pieceRows, int row, int col) {
+        for (int i = 0; i < pieceRows.length; i++) {
+            rows[row + i] |= pieceRows[i] << col; // Merge the piece row into the board row
+        }
+    }
+
+    /**
+     * Removes every full row and shifts the rows above it down
+     *
+     * @return The number of rows removed
+     */
+    public int clearFullRows() {
+        int write = height - 1; // Next row to keep, filled from the bottom up
+        for (int read = height - 1; read >= 0; read--) {
+            if (rows[read] != fullMask) { // Keep incomplete rows
+                rows[write--] = rows[read];
+            }
+        }
+        int cleared = write + 1; // Rows left over at the top are the removed ones
+        Arrays.fill(rows, 0, cleared, 0); // Clear the freed top rows
+        return cleared;
+    }
+
+    /**
+     * @param row The row index
+     * @param col The column index
+     * @return true if the cell is filled
+     */
+    public boolean isFilled(int row, int col) {
+        return (rows[row] & (1 << col)) != 0;
+    }
+
+    /**
+     * @param row The row index
+     * @return The mask of the given row
+     */
+    public int getRow(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Copies the row masks into an array, for search code that works on raw rows
+     *
+     * @param target Array of at least getHeight() elements
+     */
+    public void copyRowsTo(int[] target) {
+        System.arraycopy(rows, 0, target, 0, height);
+    }
+
+    /**
+     * @return true if any cell in the top row is filled
+     */
+    public boolean isTopRowFilled() {
+        return rows[0] != 0;
+    }
+
+    /**
+     * Empties the whole board
+     */
+    public void clear() {
+        Arrays.fill(rows, 0);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,61 @@
+package Question3;
+
+import java.awt.Color;
+
+/**
+ * Class to represent a Tetris block with shape, color and position
+ */
+class Block {
+    int type; // Piece type index in the PieceCatalogue
+    int rotation; // Current rotation index (0-3)
+    int[][] shape; // 2D array representing the block's shape in the current rotation
+    int[] rowMasks; // Bitmask of each shape row (bit j = column j)
+    int width; // Width of the shape's bounding box
+    Color color; // Color of the block
+    int x, y; // Position of the block on the game board
+
+    /**
+     * Constructor to initialize a block with a specific piece type and color
+     * 
+     * @param type The piece type in the PieceCatalogue
+     * @param color The color of the block
+     */
+    public Block(int type, Color color) {
+        reset(type, color);
+    }
+
+    /**
+     * Reinitialises the block as a fresh piece at the spawn position
+     * Lets the engine recycle locked blocks instead of allocating new ones.
+     * 
+     * @param type The piece type in the PieceCatalogue
+     * @param color The color of the block
+     */
+    void reset(int type, Color color) {
+        this.type = type; // Set the piece type
+        this.color = color; // Set the block color
+        this.x = 0; // Start at the top-left corner (row)
+        this.y = 3; // Center horizontally (column)
+        setRotation(0); // Spawn unrotated
+    }
+
+    /**
+     * Rotates the block 90 degrees clockwise
+     * Only the rotation index changes, the shapes come from the catalogue
+     */
+    public void rotate() {
+        setRotation(PieceCatalogue.next(rotation));
+    }
+
+    /**
+     * Switches to a precomputed rotation
+     * 
+     * @param rotation The rotation index
+     */
+    void setRotation(int rotation) {
+        this.rotation = rotation;
+        shape = PieceCatalogue.shape(type, rotation); // Shared precomputed matrix
+        rowMasks = PieceCatalogue.rowMasks(type, rotation); // Shared precomputed masks
+        width = PieceCatalogue.width(type, rotation); // Bounding box width
+    }
+}
@@ -0,0 +1,208 @@
+package Question3;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cached renderer for the Tetris board
+ * The grid and the locked cells live in an offscreen image that is only updated for the rows
+ * that changed, and every tile is a pre-rendered sprite, so a frame is a few image blits clipped
+ * to the dirty region instead of a gradient fill per cell.
+ */
+class BoardRenderer {
+    private final int columns; // Board width in tiles
+    private final int rows; // Board height in tiles
+    private final int tileSize; // Size of each tile in logical pixels
+    private final Color background; // Board background color
+    private final Color gridColor; // Grid line color
+
+    private final Map<Color, BufferedImage> pieceSprites = new HashMap<>(); // One tile sprite per block color
+    private BufferedImage lockedSprite; // Tile sprite of a locked cell
+    private BufferedImage boardImage; // Grid plus locked cells
+    private double scale; // Device scale the images were rendered at (2.0 on high-DPI screens)
+    private int dirtyFrom; // First board row that has to be redrawn into the image
+    private int dirtyTo; // Row after the last one that has to be redrawn
+
+    /**
+     * Constructor to create a renderer for a board
+     *
+     * @param columns The board width in tiles
+     * @param rows The board height in tiles
+     * @param tileSize The tile size in logical pixels
+     * @param background The board background color
+     * @param gridColor The grid line color
+     */
+    BoardRenderer(int columns, int rows, int tileSize, Color background, Color gridColor) {
+        this.columns = columns;
+        this.rows = rows;
+        this.tileSize = tileSize;
+        this.background = background;
+        this.gridColor = gridColor;
+        this.dirtyFrom = rows; // Nothing dirty until the first frame
+    }
+
+    /**
+     * Marks board rows whose locked cells changed
+     *
+     * @param fromRow The first changed row
+     * @param toRow The row after the last changed row
+     */
+    void invalidateRows(int fromRow, int toRow) {
+        dirtyFrom = Math.max(0, Math.min(dirtyFrom, fromRow));
+        dirtyTo = Math.min(rows, Math.max(dirtyTo, toRow));
+    }
+
+    /**
+     * Converts a board row range to the panel rectangle it covers
+     *
+     * @param fromRow The first row
+     * @param toRow The row after the last row
+     * @return The covered rectangle in logical pixels, including the grid lines
+     */
+    Rectangle rowBounds(int fromRow, int toRow) {
+        return new Rectangle(0, fromRow * tileSize, columns * tileSize + 1, (toRow - fromRow) * tileSize + 1);
+    }
+
+    /**
+     * Computes the rectangle covered by a falling block
+     *
+     * @param block The block
+     * @return The covered rectangle in logical pixels, or null if there is no block
+     */
+    Rectangle pieceBounds(Block block) {
+        if (block == null) {
+            return null;
+        }
+        return new Rectangle(block.y * tileSize, block.x * tileSize,
+                block.width * tileSize + 1, block.shape.length * tileSize + 1);
+    }
+
+    /**
+     * Draws the board and the falling block
+     * Only pixels inside the graphics clip are actually blitted.
+     *
+     * @param g2d The graphics context
+     * @param board The locked cells
+     * @param block The falling block, or null
+     */
+    void paint(Graphics2D g2d, BitBoard board, Block block) {
+        AffineTransform transform = g2d.getTransform();
+        double deviceScale = Math.max(transform.getScaleX(), transform.getScaleY());
+        if (boardImage == null || deviceScale != scale) { // First frame or moved to a screen with another scale
+            scale = deviceScale;
+            pieceSprites.clear();
+            lockedSprite = createSprite(Color.LIGHT_GRAY, Color.DARK_GRAY, Color.GRAY);
+            boardImage = createBoardImage();
+            dirtyFrom = 0;
+            dirtyTo = rows;
+        }
+        if (dirtyFrom < dirtyTo) {
+            updateBoardImage(board); // Bring the changed rows up to date
+        }
+
+        int boardWidth = columns * tileSize + 1;
+        int boardHeight = rows * tileSize + 1;
+        g2d.drawImage(boardImage, 0, 0, boardWidth, boardHeight, null); // Locked board, scaled back to logical size
+
+        if (block != null) { // Draw each cell of the falling block
+            BufferedImage sprite = pieceSprite(block.color);
+            for (int i = 0; i < block.shape.length; i++) { // Iterate through rows
+                int mask = block.rowMasks[i];
+                for (int j = 0; j < block.width; j++) { // Iterate through columns
+                    if ((mask & (1 << j)) != 0) { // If this cell is part of the block
+                        int x = (block.y + j) * tileSize; // X coordinate
+                        int y = (block.x + i) * tileSize; // Y coordinate
+                        g2d.drawImage(sprite, x + 1, y + 1, tileSize - 1, tileSize - 1, null);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Redraws the dirty rows of the offscreen board image from the bitboard
+     *
+     * @param board The locked cells
+     */
+    private void updateBoardImage(BitBoard board) {
+        Graphics2D g = boardImage.createGraphics();
+        g.scale(scale, scale);
+        int top = dirtyFrom * tileSize;
+        int height = (dirtyTo - dirtyFrom) * tileSize;
+
+        // Clear the rows and redraw their grid lines
+        g.setColor(background);
+        g.fillRect(0, top, columns * tileSize + 1, height + 1);
+        g.setColor(gridColor);
+        for (int i = dirtyFrom; i <= dirtyTo; i++) { // Draw horizontal lines
+            g.drawLine(0, i * tileSize, columns * tileSize, i * tileSize);
+        }
+        for (int j = 0; j <= columns; j++) { // Draw vertical lines
+            g.drawLine(j * tileSize, top, j * tileSize, top + height);
+        }
+
+        // Draw the filled cells of the dirty rows
+        for (int i = dirtyFrom; i < dirtyTo; i++) { // Iterate through rows
+            int mask = board.getRow(i);
+            for (int j = 0; mask != 0 && j < columns; j++) { // Iterate through columns until the row is exhausted
+                if ((mask & (1 << j)) != 0) { // If cell is filled
+                    g.drawImage(lockedSprite, j * tileSize + 1, i * tileSize + 1, tileSize - 1, tileSize - 1, null);
+                }
+            }
+        }
+        g.dispose();
+        dirtyFrom = rows; // Nothing dirty any more
+        dirtyTo = 0;
+    }
+
+    /**
+     * Creates an empty board image at device resolution
+     *
+     * @return The board image
+     */
+    private BufferedImage createBoardImage() {
+        int width = (int) Math.ceil((columns * tileSize + 1) * scale);
+        int height = (int) Math.ceil((rows * tileSize + 1) * scale);
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns the cached tile sprite for a block color, rendering it on first use
+     *
+     * @param color The block color
+     * @return The tile sprite
+     */
+    private BufferedImage pieceSprite(Color color) {
+        BufferedImage sprite = pieceSprites.get(color);
+        if (sprite == null) {
+            sprite = createSprite(color, color.darker(), color.darker());
+            pieceSprites.put(color, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Renders one tile with a diagonal gradient and a border
+     *
+     * @param from The gradient start color (top-left)
+     * @param to The gradient end color (bottom-right)
+     * @param border The border color
+     * @return The tile sprite at device resolution
+     */
+    private BufferedImage createSprite(Color from, Color to, Color border) {
+        int size = tileSize - 1; // Tiles leave one pixel for the grid line
+        int pixels = (int) Math.ceil(size * scale);
+        BufferedImage sprite = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.scale(scale, scale);
+        g.setPaint(new GradientPaint(0, 0, from, size, size, to)); // Built once per sprite, not per cell
+        g.fillRect(0, 0, size, size);
+        g.setColor(border);
+        g.drawRect(0, 0, size - 1, size - 1);
+        g.dispose();
+        return sprite;
+    }
+}
@@ -0,0 +1,102 @@
+package Question3;
+
+import java.util.Arrays;
+
+/**
+ * Catalogue of all Tetris pieces with every rotation precomputed
+ * Built once at class load, so rotating a block only changes its rotation index
+ * and never allocates a new shape matrix.
+ */
+final class PieceCatalogue {
+    static final int ROTATIONS = 4; // Quarter turns per piece
+
+    // Define all possible Tetris block shapes (rotation 0)
+    private static final int[][][] BASE_SHAPES = {
+        {{1, 1, 1, 1}},           // I-block
+        {{1, 1}, {1, 1}},         // O-block
+        {{1, 1, 1}, {0, 1, 0}},   // T-block
+        {{1, 1, 0}, {0, 1, 1}},   // Z-block
+        {{0, 1, 1}, {1, 1, 0}},   // S-block
+        {{1, 0, 0}, {1, 1, 1}},   // L-block
+        {{0, 0, 1}, {1, 1, 1}}    // J-block
+    };
+
+    static final int PIECE_COUNT = BASE_SHAPES.length; // Number of piece types
+
+    private static final int[][][][] SHAPES = new int[PIECE_COUNT][ROTATIONS][][]; // Shape matrix per rotation
+    private static final int[][][] ROW_MASKS = new int[PIECE_COUNT][ROTATIONS][]; // Row masks per rotation
+    private static final int[][] WIDTHS = new int[PIECE_COUNT][ROTATIONS]; // Bounding box width per rotation
+    private static final int[][] HEIGHTS = new int[PIECE_COUNT][ROTATIONS]; // Bounding box height per rotation
+    private static final int[] DISTINCT_ROTATIONS = new int[PIECE_COUNT]; // Rotations with a different footprint
+
+    static {
+        for (int type = 0; type < PIECE_COUNT; type++) {
+            int[][] shape = BASE_SHAPES[type];
+            DISTINCT_ROTATIONS[type] = ROTATIONS;
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                SHAPES[type][rotation] = shape;
+                ROW_MASKS[type][rotation] = BitBoard.toRowMasks(shape);
+                WIDTHS[type][rotation] = shape[0].length;
+                HEIGHTS[type][rotation] = shape.length;
+                // The first rotation that repeats rotation 0 ends the distinct cycle (O repeats after 1, I/S/Z after 2)
+                if (rotation > 0 && DISTINCT_ROTATIONS[type] == ROTATIONS
+                        && Arrays.equals(ROW_MASKS[type][rotation], ROW_MASKS[type][0])) {
+                    DISTINCT_ROTATIONS[type] = rotation;
+                }
+                shape = rotateClockwise(shape);
+            }
+        }
+    }
+
+    private PieceCatalogue() {
+    }
+
+    /**
+     * Rotates a shape matrix 90 degrees clockwise
+     * Only used while building the catalogue.
+     *
+     * @param shape The shape to rotate
+     * @return A new rotated matrix
+     */
+    private static int[][] rotateClockwise(int[][] shape) {
+        int[][] rotated = new int[shape[0].length][shape.length]; // Create a new matrix with swapped dimensions
+        for (int i = 0; i < shape.length; i++) { // Iterate through rows
+            for (int j = 0; j < shape[0].length; j++) { // Iterate through columns
+                rotated[j][shape.length - 1 - i] = shape[i][j]; // Apply rotation transformation
+            }
+        }
+        return rotated;
+    }
+
+    /**
+     * @param rotation Any rotation count
+     * @return The rotation after one more clockwise quarter turn
+     */
+    static int next(int rotation) {
+        return (rotation + 1) & (ROTATIONS - 1);
+    }
+
+    static int[][] shape(int type, int rotation) {
+        return SHAPES[type][rotation];
+    }
+
+    static int[] rowMasks(int type, int rotation) {
+        return ROW_MASKS[type][rotation];
+    }
+
+    static int width(int type, int rotation) {
+        return WIDTHS[type][rotation];
+    }
+
+    static int height(int type, int rotation) {
+        return HEIGHTS[type][rotation];
+    }
+
+    /**
+     * @param type The piece type
+     * @return Number of rotations with distinct footprints (1 for O, 2 for I/S/Z, 4 otherwise)
+     */
+    static int distinctRotations(int type) {
+        return DISTINCT_ROTATIONS[type];
+    }
+}
@@ -0,0 +1,99 @@
+package Question3;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Allocation profile of the Tetris input and gravity paths
+ * Uses the HotSpot per-thread allocation counter to report how many bytes each
+ * engine operation allocates; after warm-up every hot path should report 0.
+ */
+public class TetrisAllocationBenchmark {
+    private static final int OPERATIONS = 5_000_000; // Operations per measurement
+
+    /**
+     * Reads the number of bytes allocated so far by the current thread
+     *
+     * @return Allocated bytes, or -1 if the JVM does not support the counter
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the input operations (rotate, left, right) on a fresh game
+     *
+     * @param engine The game to drive
+     * @param operations Number of operations
+     * @return A value derived from the results so the JIT can not drop the loop
+     */
+    private static int inputLoop(TetrisEngine engine, int operations) {
+        int moved = 0;
+        for (int i = 0; i < operations; i++) {
+            switch (i % 3) {
+                case 0: moved += engine.rotateBlock() ? 1 : 0; break;
+                case 1: moved += engine.moveLeft() ? 1 : 0; break;
+                default: moved += engine.moveRight() ? 1 : 0; break;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Runs gravity ticks, including locking, line clears and spawns, restarting finished games
+     *
+     * @param engine The game to drive
+     * @param operations Number of gravity ticks
+     * @return A value derived from the results so the JIT can not drop the loop
+     */
+    private static int gravityLoop(TetrisEngine engine, int operations) {
+        int moved = 0;
+        for (int i = 0; i < operations; i++) {
+            if (engine.isGameOver()) {
+                engine.getBoard().clear(); // Keep playing on the same engine instead of allocating a new one
+            }
+            if ((i & 1) == 0) {
+                engine.rotateBlock(); // Vary the footprints that get locked
+            }
+            moved += engine.moveDown() ? 1 : 0;
+        }
+        return moved;
+    }
+
+    /**
+     * Measures bytes per operation for one loop
+     *
+     * @param name Label of the measurement
+     * @param gravity true for the gravity loop, false for the input loop
+     */
+    private static void measure(String name, boolean gravity) {
+        TetrisEngine engine = new TetrisEngine(7L);
+        int sink = gravity ? gravityLoop(engine, OPERATIONS) : inputLoop(engine, OPERATIONS); // Warm up the JIT
+
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        sink += gravity ? gravityLoop(engine, OPERATIONS) : inputLoop(engine, OPERATIONS);
+        long nanos = System.nanoTime() - start;
+        long after = allocatedBytes();
+
+        if (before < 0) {
+            System.out.println(name + ": allocation counter not supported by this JVM");
+            return;
+        }
+        System.out.printf("%-8s %.4f bytes/op, %.1f ns/op (checksum %d)%n",
+                name, (double) (after - before) / OPERATIONS, (double) nanos / OPERATIONS, sink);
+    }
+
+    /**
+     * Prints the allocation profile of the input and gravity paths
+     *
+     * @param args Command line arguments (not used)
+     */
+    public static void main(String[] args) {
+        measure("input", false);
+        measure("gravity", true);
+    }
+}
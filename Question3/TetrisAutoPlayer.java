@@ -0,0 +1,292 @@
+package Question3;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Autoplayer that searches every placement of the current block
+ * Each rotation and column is dropped onto a copy of the board, followed by a look-ahead over
+ * the queued blocks, and the resulting boards are scored with a weighted heuristic of aggregate
+ * height, cleared lines, holes and bumpiness. The first-level placements are searched in parallel.
+ */
+public class TetrisAutoPlayer implements TetrisSimulator.Policy {
+    // Heuristic weights (aggregate height, lines, holes, bumpiness)
+    private static final double HEIGHT_WEIGHT = -0.510066;
+    private static final double LINES_WEIGHT = 0.760666;
+    private static final double HOLES_WEIGHT = -0.35663;
+    private static final double BUMPINESS_WEIGHT = -0.184483;
+    private static final double GAME_OVER_SCORE = -1e9; // Score of a board whose top row is filled
+
+    // Minimum search rate, enough for a two-piece search to finish well inside one tick of the fastest DELAY
+    static final int TARGET_PLACEMENTS_PER_MS = 500;
+
+    private static final int WIDTH = TetrisEngine.BOARD_WIDTH;
+    private static final int HEIGHT = TetrisEngine.BOARD_HEIGHT;
+    private static final int FULL_MASK = (1 << WIDTH) - 1;
+
+    private final int lookahead; // Number of queued blocks searched after the current one
+    private final LongAdder placementsEvaluated = new LongAdder(); // Total placements scored so far
+    private final ThreadLocal<int[][]> scratch; // Per-thread board copies, one per search depth
+
+    /**
+     * A chosen placement
+     */
+    public static class Move {
+        final int rotation; // Target rotation index
+        final int column; // Target column of the block's left edge
+        final double score; // Heuristic score of the best line of play
+
+        Move(int rotation, int column, double score) {
+            this.rotation = rotation;
+            this.column = column;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Constructor to create an autoplayer
+     *
+     * @param lookahead Number of queued blocks to search after the current one (0 for none)
+     */
+    public TetrisAutoPlayer(int lookahead) {
+        this.lookahead = Math.max(0, Math.min(lookahead, TetrisEngine.PREVIEW_SIZE));
+        this.scratch = ThreadLocal.withInitial(() -> new int[this.lookahead + 2][HEIGHT + 1]); // Slot 0 holds column heights, slot i the board after i placements
+    }
+
+    /**
+     * Finds the best placement for the engine's current block
+     *
+     * @param engine The game
+     * @return The best move, or null if the block fits nowhere
+     */
+    public Move bestMove(TetrisEngine engine) {
+        int[] types = new int[lookahead + 1]; // Current block followed by the queued ones
+        int count = 0;
+        types[count++] = engine.getCurrentBlock().type;
+        for (Block queued : engine.getBlockQueue()) {
+            if (count == types.length) {
+                break;
+            }
+            types[count++] = queued.type;
+        }
+        int depth = count;
+
+        int[] root = new int[HEIGHT];
+        engine.getBoard().copyRowsTo(root);
+
+        int type = types[0];
+        int rotations = PieceCatalogue.distinctRotations(type);
+        int candidates = rotations * WIDTH; // Rotation-major; columns past the right edge are skipped
+        return IntStream.range(0, candidates)
+                .parallel()
+                .mapToObj(i -> evaluateCandidate(root, types, depth, i / WIDTH, i % WIDTH))
+                .filter(move -> move != null)
+                .reduce((a, b) -> b.score > a.score ? b : a)
+                .orElse(null);
+    }
+
+    /**
+     * Scores one first-level placement including its look-ahead
+     *
+     * @return The scored move, or null if the placement is impossible
+     */
+    private Move evaluateCandidate(int[] root, int[] types, int depth, int rotation, int column) {
+        int type = types[0];
+        if (column + PieceCatalogue.width(type, rotation) > WIDTH) {
+            return null; // Block would stick out on the right
+        }
+        int[][] boards = scratch.get();
+        long[] evaluated = {0};
+        int lines = drop(root, boards[1], type, rotation, column);
+        if (lines < 0) {
+            return null; // Blocked at the spawn row
+        }
+        evaluated[0]++;
+        double score = depth == 1 ? evaluate(boards[1], lines, boards[0])
+                : search(boards, types, depth, 1, lines, evaluated);
+        placementsEvaluated.add(evaluated[0]);
+        return new Move(rotation, column, score);
+    }
+
+    /**
+     * Depth-first search over every placement of the block at the given level
+     *
+     * @return The best score reachable from the board at this level
+     */
+    private double search(int[][] boards, int[] types, int depth, int level, int lines, long[] evaluated) {
+        int[] board = boards[level];
+        if (board[0] != 0) {
+            return GAME_OVER_SCORE; // The previous placement ended the game
+        }
+        int type = types[level];
+        double best = GAME_OVER_SCORE;
+        for (int rotation = 0; rotation < PieceCatalogue.distinctRotations(type); rotation++) {
+            int maxColumn = WIDTH - PieceCatalogue.width(type, rotation);
+            for (int column = 0; column <= maxColumn; column++) {
+                int cleared = drop(board, boards[level + 1], type, rotation, column);
+                if (cleared < 0) {
+                    continue;
+                }
+                evaluated[0]++;
+                double score = level + 1 == depth
+                        ? evaluate(boards[level + 1], lines + cleared, boards[0])
+                        : search(boards, types, depth, level + 1, lines + cleared, evaluated);
+                best = Math.max(best, score);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Drops a block straight down from the spawn row onto a copy of the board
+     *
+     * @param from The board before the drop
+     * @param to Receives the board after the drop and line clears
+     * @return The number of cleared lines, or -1 if the block is blocked at the spawn row
+     */
+    private static int drop(int[] from, int[] to, int type, int rotation, int column) {
+        int[] masks = PieceCatalogue.rowMasks(type, rotation);
+        if (collides(from, masks, 0, column)) {
+            return -1;
+        }
+        int row = 0;
+        while (!collides(from, masks, row + 1, column)) { // Fall until the next row is blocked
+            row++;
+        }
+        System.arraycopy(from, 0, to, 0, HEIGHT);
+        for (int i = 0; i < masks.length; i++) {
+            to[row + i] |= masks[i] << column; // Lock the block
+        }
+
+        // Compact away full rows from the bottom up
+        int write = HEIGHT - 1;
+        for (int read = HEIGHT - 1; read >= 0; read--) {
+            if (to[read] != FULL_MASK) {
+                to[write--] = to[read];
+            }
+        }
+        for (int i = 0; i <= write; i++) {
+            to[i] = 0;
+        }
+        return write + 1;
+    }
+
+    /**
+     * Checks a block position against raw board rows
+     */
+    private static boolean collides(int[] rows, int[] masks, int row, int column) {
+        if (row + masks.length > HEIGHT) {
+            return true; // Past the floor
+        }
+        for (int i = 0; i < masks.length; i++) {
+            if ((rows[row + i] & (masks[i] << column)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores a board with the weighted heuristic
+     *
+     * @param rows The board rows
+     * @param lines Lines cleared on the way to this board
+     * @param heights Scratch array for column heights
+     * @return The heuristic score, higher is better
+     */
+    private static double evaluate(int[] rows, int lines, int[] heights) {
+        if (rows[0] != 0) {
+            return GAME_OVER_SCORE;
+        }
+        int seen = 0; // Columns that already have a filled cell above the current row
+        int holes = 0;
+        for (int r = 0; r < HEIGHT; r++) {
+            int row = rows[r];
+            int fresh = row & ~seen; // Columns whose top cell is in this row
+            while (fresh != 0) {
+                int column = Integer.numberOfTrailingZeros(fresh);
+                heights[column] = HEIGHT - r;
+                fresh &= fresh - 1;
+            }
+            seen |= row;
+            holes += Integer.bitCount(seen & ~row); // Empty cells covered by a filled cell above
+        }
+        int aggregate = 0;
+        int bumpiness = 0;
+        for (int c = 0; c < WIDTH; c++) {
+            int height = (seen & (1 << c)) != 0 ? heights[c] : 0;
+            aggregate += height;
+            if (c > 0) {
+                int left = (seen & (1 << (c - 1))) != 0 ? heights[c - 1] : 0;
+                bumpiness += Math.abs(height - left);
+            }
+        }
+        return HEIGHT_WEIGHT * aggregate + LINES_WEIGHT * lines + HOLES_WEIGHT * holes + BUMPINESS_WEIGHT * bumpiness;
+    }
+
+    /**
+     * Rotates and shifts the engine's current block to a move's target
+     * The block keeps falling under gravity (or is hard-dropped by the caller).
+     *
+     * @param engine The game
+     * @param move The target placement
+     */
+    public static void apply(TetrisEngine engine, Move move) {
+        Block block = engine.getCurrentBlock();
+        for (int i = 0; i < PieceCatalogue.ROTATIONS && block.rotation != move.rotation; i++) {
+            if (!engine.rotateBlock()) {
+                break; // Blocked, play from here
+            }
+        }
+        while (block.y > move.column && engine.moveLeft()) {
+            // Shift left until the target column
+        }
+        while (block.y < move.column && engine.moveRight()) {
+            // Shift right until the target column
+        }
+    }
+
+    /**
+     * Simulator policy: positions the block at the best placement
+     */
+    @Override
+    public void place(TetrisEngine engine, SplittableRandom random) {
+        Move move = bestMove(engine);
+        if (move != null) {
+            apply(engine, move);
+        }
+    }
+
+    /**
+     * @return The total number of placements scored by this autoplayer
+     */
+    public long getPlacementsEvaluated() {
+        return placementsEvaluated.sum();
+    }
+
+    /**
+     * Plays a headless game and reports the search rate against the target
+     *
+     * @param args Optional look-ahead depth (default 1) and number of blocks (default 2000)
+     */
+    public static void main(String[] args) {
+        int lookahead = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int pieces = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        TetrisAutoPlayer player = new TetrisAutoPlayer(lookahead);
+        TetrisSimulator.playGame(player, 1L, pieces / 4); // Warm up the JIT
+
+        long before = player.getPlacementsEvaluated();
+        long start = System.nanoTime();
+        TetrisEngine engine = TetrisSimulator.playGame(player, 42L, pieces);
+        double millis = (System.nanoTime() - start) / 1e6;
+        long placements = player.getPlacementsEvaluated() - before;
+
+        double rate = placements / millis;
+        System.out.printf("look-ahead %d: %d blocks, %d lines, score %d%n",
+                lookahead, engine.getPiecesPlaced(), engine.getLinesCleared(), engine.getScore());
+        System.out.printf("%.0f placements/ms (target %d), %.3f ms per block (tick %d ms)%n",
+                rate, TARGET_PLACEMENTS_PER_MS, millis / engine.getPiecesPlaced(), TetrisGame.DELAY);
+        System.out.println(rate >= TARGET_PLACEMENTS_PER_MS ? "Target met" : "Target NOT met");
+    }
+}
@@ -0,0 +1,237 @@
+package Question3;
+
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.SplittableRandom;
+
+/**
+ * Headless Tetris rules engine
+ * Holds the board, the falling block and the score without any Swing dependency,
+ * so the rules can run at full speed for simulations and be driven by the UI timer for play.
+ */
+public class TetrisEngine {
+    // Board dimensions in tiles
+    public static final int BOARD_WIDTH = 10;
+    public static final int BOARD_HEIGHT = 20;
+    public static final int PREVIEW_SIZE = 3; // Upcoming blocks kept in the queue for look-ahead
+
+    // Predefined colors for blocks - using slightly muted professional colors
+    static final Color[] COLORS = {
+        new Color(220, 20, 60),   // Crimson
+        new Color(65, 105, 225),  // Royal Blue
+        new Color(46, 139, 87),   // Sea Green
+        new Color(218, 165, 32),  // Goldenrod
+        new Color(255, 140, 0),   // Dark Orange
+        new Color(0, 139, 139),   // Dark Cyan
+        new Color(148, 0, 211)    // Dark Violet
+    };
+
+    private final BitBoard gameBoard; // Bitboard of locked cells (one mask per row)
+    private final Queue<Block> blockQueue; // Queue to store the sequence of falling blocks
+    private final SplittableRandom random; // Seeded generator so a game can be replayed exactly
+    private Block currentBlock; // Current falling block
+    private int score; // Player's score
+    private int linesCleared; // Total number of removed rows
+    private int piecesPlaced; // Total number of locked blocks
+    private int lastLockTop; // First board row touched by the last locked block
+    private int lastLockBottom; // Row after the last board row touched by the last locked block
+
+    /**
+     * Constructor to create a game with a random seed
+     */
+    public TetrisEngine() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Constructor to create a deterministic game
+     *
+     * @param seed Seed for the block sequence, equal seeds give equal games
+     */
+    public TetrisEngine(long seed) {
+        gameBoard = new BitBoard(BOARD_WIDTH, BOARD_HEIGHT); // Initialize empty game board
+        blockQueue = new ArrayDeque<>(); // Initialize empty block queue (no node allocation per add)
+        random = new SplittableRandom(seed);
+        for (int i = 0; i <= PREVIEW_SIZE; i++) {
+            generateNewBlock(null); // Generate the first block and fill the preview queue
+        }
+    }
+
+    /**
+     * Generates a new random Tetris block and adds it to the queue
+     * Creates blocks with different shapes and colors
+     * 
+     * @param recycled A locked block to reuse, or null to allocate one
+     */
+    private void generateNewBlock(Block recycled) {
+        // Select a random shape and color
+        int type = random.nextInt(PieceCatalogue.PIECE_COUNT); // Choose random shape
+        Color color = COLORS[random.nextInt(COLORS.length)]; // Choose random color
+
+        // Create and queue the new block
+        Block block = recycled;
+        if (block == null) {
+            block = new Block(type, color); // Create new block
+        } else {
+            block.reset(type, color); // Reuse the locked block
+        }
+        blockQueue.add(block); // Add to queue
+
+        // If there's no current block, get one from the queue
+        if (currentBlock == null) {
+            currentBlock = blockQueue.poll(); // Get first block from queue
+        }
+    }
+
+    /**
+     * Checks if a block can move to a new position
+     *
+     * @param block The block to check
+     * @param newX The new X position
+     * @param newY The new Y position
+     * @return true if the move is valid, false otherwise
+     */
+    public boolean canMove(Block block, int newX, int newY) {
+        // One AND per shape row against the board masks
+        return !gameBoard.collides(block.rowMasks, block.width, newX, newY);
+    }
+
+    /**
+     * Moves the current block one position to the left
+     * if the move is valid
+     *
+     * @return true if the block moved
+     */
+    public boolean moveLeft() {
+        if (canMove(currentBlock, currentBlock.x, currentBlock.y - 1)) { // Check if can move left
+            currentBlock.y--; // Decrease Y coordinate (move left)
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the current block one position to the right
+     * if the move is valid
+     *
+     * @return true if the block moved
+     */
+    public boolean moveRight() {
+        if (canMove(currentBlock, currentBlock.x, currentBlock.y + 1)) { // Check if can move right
+            currentBlock.y++; // Increase Y coordinate (move right)
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rotates the current block if the rotation is valid
+     * Tests the next precomputed rotation directly against the board
+     *
+     * @return true if the block rotated
+     */
+    public boolean rotateBlock() {
+        int type = currentBlock.type;
+        int next = PieceCatalogue.next(currentBlock.rotation); // Rotation after a clockwise quarter turn
+
+        // Check if the rotated position is valid
+        if (!gameBoard.collides(PieceCatalogue.rowMasks(type, next), PieceCatalogue.width(type, next),
+                currentBlock.x, currentBlock.y)) { // If rotation is valid
+            currentBlock.setRotation(next); // Apply rotation to actual block
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the current block one position down
+     * If not possible, places the block on the board
+     *
+     * @return true if the block moved down, false if it was placed
+     */
+    public boolean moveDown() {
+        if (canMove(currentBlock, currentBlock.x + 1, currentBlock.y)) { // Check if can move down
+            currentBlock.x++; // Increase X coordinate (move down)
+            return true; // Block moved successfully
+        } else {
+            placeBlock(); // Place the block on the board
+            return false; // Block couldn't move
+        }
+    }
+
+    /**
+     * Drops the current block straight down and places it
+     */
+    public void hardDrop() {
+        while (moveDown()) {} // Keep moving down until blocked
+    }
+
+    /**
+     * Places the current block on the game board
+     * Marks the cells as filled and prepares the next block
+     */
+    private void placeBlock() {
+        gameBoard.place(currentBlock.rowMasks, currentBlock.x, currentBlock.y); // OR the row masks in
+        piecesPlaced++;
+        lastLockTop = currentBlock.x;
+        lastLockBottom = currentBlock.x + currentBlock.rowMasks.length;
+
+        checkCompletedRows(); // Check for completed rows
+        Block locked = currentBlock; // Its cells now live in the board, the object can be reused
+        currentBlock = blockQueue.poll(); // Get the next block from queue
+        generateNewBlock(locked); // Generate a new block for the queue
+    }
+
+    /**
+     * Checks for completed rows and updates the score
+     * A row is complete when all cells are filled
+     */
+    private void checkCompletedRows() {
+        int cleared = gameBoard.clearFullRows(); // Full rows are compared against the full mask and compacted
+        linesCleared += cleared;
+        score += cleared * 100; // Increase the score for each removed row
+    }
+
+    /**
+     * Checks if the game is over
+     * Game is over when blocks reach the top of the board
+     *
+     * @return true if game is over, false otherwise
+     */
+    public boolean isGameOver() {
+        return gameBoard.isTopRowFilled(); // Any filled cell in the top row ends the game
+    }
+
+    public BitBoard getBoard() {
+        return gameBoard;
+    }
+
+    public Block getCurrentBlock() {
+        return currentBlock;
+    }
+
+    public Queue<Block> getBlockQueue() {
+        return blockQueue;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public int getLastLockTop() {
+        return lastLockTop;
+    }
+
+    public int getLastLockBottom() {
+        return lastLockBottom;
+    }
+}
@@ -5,7 +5,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.*;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 
@@ -16,61 +15,26 @@ import javax.swing.border.LineBorder;
 
  */
 
-/**
- * Class to represent a Tetris block with shape, color and position
- */
-class Block {
-    int[][] shape; // 2D array representing the block's shape
-    Color color; // Color of the block
-    int x, y; // Position of the block on the game board
-
-    /**
-     * Constructor to initialize a block with a specific shape and color
-     * 
-     * @param shape The 2D array representing the block's shape
-     * @param color The color of the block
-     */
-    public Block(int[][] shape, Color color) {
-        this.shape = shape; // Initialize the block shape
-        this.color = color; // Set the block color
-        this.x = 0; // Start at the top-left corner (row)
-        this.y = 3; // Center horizontally (column)
-    }
-
-    /**
-     * Rotates the block 90 degrees clockwise
-     * This transforms the block's shape matrix
-     */
-    public void rotate() {
-        int[][] rotated = new int[shape[0].length][shape.length]; // Create a new matrix with swapped dimensions
-        for (int i = 0; i < shape.length; i++) { // Iterate through rows
-            for (int j = 0; j < shape[0].length; j++) { // Iterate through columns
-                rotated[j][shape.length - 1 - i] = shape[i][j]; // Apply rotation transformation
-            }
-        }
-        shape = rotated; // Update the shape with the rotated matrix
-    }
-}
-
 /**
  * Main Tetris game class using Swing
  * Handles game logic, rendering, and user input
  */
 public class TetrisGame extends JPanel implements ActionListener, KeyListener {
     // Game constants
-    private static final int BOARD_WIDTH = 10; // Width of the game board in tiles
-    private static final int BOARD_HEIGHT = 20; // Height of the game board in tiles
+    private static final int BOARD_WIDTH = TetrisEngine.BOARD_WIDTH; // Width of the game board in tiles
+    private static final int BOARD_HEIGHT = TetrisEngine.BOARD_HEIGHT; // Height of the game board in tiles
     private static final int TILE_SIZE = 30; // Size of each tile in pixels
     private static final int FPS = 10; // Frames per second (reduced for slower speed)
-    private static final int DELAY = 1000 / FPS; // Delay between frames in milliseconds
+    static final int DELAY = 1000 / FPS; // Delay between frames in milliseconds
     
     // Game state variables
-    private final int[][] gameBoard; // 2D array representing the game board (0=empty, 1=filled)
-    private final Queue<Block> blockQueue; // Queue to store the sequence of falling blocks
-    private Block currentBlock; // Current falling block
-    private int score; // Player's score
+    private final TetrisEngine engine; // Headless game rules (board, blocks, score)
+    private final BoardRenderer renderer; // Cached board image and tile sprites
     private final javax.swing.Timer timer; // Timer for game updates
     private boolean isPaused = false; // Flag to track if game is paused
+    private final TetrisAutoPlayer autoPlayer = new TetrisAutoPlayer(1); // Searches the current and next block
+    private boolean isAutoPlay = false; // Flag to track if the autoplayer controls the blocks
+    private int plannedPiece = -1; // Locked-block count when the autoplayer last positioned a block
     
     // UI constants
     private static final Color BOARD_BACKGROUND = new Color(20, 20, 20); // Dark background for game board
@@ -79,17 +43,6 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
     private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 16); // Font for score display
     private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 24); // Font for game over message
 
-    // Predefined colors for blocks - using slightly muted professional colors
-    private static final Color[] COLORS = {
-        new Color(220, 20, 60),   // Crimson
-        new Color(65, 105, 225),  // Royal Blue
-        new Color(46, 139, 87),   // Sea Green
-        new Color(218, 165, 32),  // Goldenrod
-        new Color(255, 140, 0),   // Dark Orange
-        new Color(0, 139, 139),   // Dark Cyan
-        new Color(148, 0, 211)    // Dark Violet
-    };
-
     /**
      * Constructor to initialize the game
      * Sets up the game board, UI, and starts the game timer
@@ -103,82 +56,20 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
         addKeyListener(this); // Register for keyboard events
 
         // Initialize game state
-        gameBoard = new int[BOARD_HEIGHT][BOARD_WIDTH]; // Initialize empty game board
-        blockQueue = new LinkedList<>(); // Initialize empty block queue
-        score = 0; // Initialize score to zero
-        generateNewBlock(); // Generate the first block
+        engine = new TetrisEngine(); // Empty board with the first block ready
+        renderer = new BoardRenderer(BOARD_WIDTH, BOARD_HEIGHT, TILE_SIZE, BOARD_BACKGROUND, GRID_COLOR);
         
         // Start the game timer
         timer = new javax.swing.Timer(DELAY, this); // Create timer with specified delay
         timer.start(); // Start the timer
     }
 
-    /**
-     * Generates a new random Tetris block and adds it to the queue
-     * Creates blocks with different shapes and colors
-     */
-    private void generateNewBlock() {
-        Random random = new Random(); // Create random number generator
-        
-        // Define all possible Tetris block shapes
-        int[][][] shapes = {
-            {{1, 1, 1, 1}},           // I-block
-            {{1, 1}, {1, 1}},         // O-block
-            {{1, 1, 1}, {0, 1, 0}},   // T-block
-            {{1, 1, 0}, {0, 1, 1}},   // Z-block
-            {{0, 1, 1}, {1, 1, 0}},   // S-block
-            {{1, 0, 0}, {1, 1, 1}},   // L-block
-            {{0, 0, 1}, {1, 1, 1}}    // J-block
-        };
-        
-        // Select a random shape and color
-        int[][] shape = shapes[random.nextInt(shapes.length)]; // Choose random shape
-        Color color = COLORS[random.nextInt(COLORS.length)]; // Choose random color
-        
-        // Create and queue the new block
-        Block block = new Block(shape, color); // Create new block
-        blockQueue.add(block); // Add to queue
-        
-        // If there's no current block, get one from the queue
-        if (currentBlock == null) {
-            currentBlock = blockQueue.poll(); // Get first block from queue
-        }
-    }
-
-    /**
-     * Checks if a block can move to a new position
-     * 
-     * @param block The block to check
-     * @param newX The new X position
-     * @param newY The new Y position
-     * @return true if the move is valid, false otherwise
-     */
-    private boolean canMove(Block block, int newX, int newY) {
-        // Check each cell of the block
-        for (int i = 0; i < block.shape.length; i++) { // Iterate through rows
-            for (int j = 0; j < block.shape[0].length; j++) { // Iterate through columns
-                if (block.shape[i][j] != 0) { // If this cell is part of the block
-                    int x = newX + i; // Calculate absolute row position
-                    int y = newY + j; // Calculate absolute column position
-                    
-                    // Check if position is out of bounds or already occupied
-                    if (x < 0 || x >= BOARD_HEIGHT || y < 0 || y >= BOARD_WIDTH || gameBoard[x][y] != 0) {
-                        return false; // Invalid move
-                    }
-                }
-            }
-        }
-        return true; // Move is valid
-    }
-
     /**
      * Moves the current block one position to the left
      * if the move is valid
      */
     public void moveLeft() {
-        if (canMove(currentBlock, currentBlock.x, currentBlock.y - 1)) { // Check if can move left
-            currentBlock.y--; // Decrease Y coordinate (move left)
-        }
+        engine.moveLeft();
     }
 
     /**
@@ -186,24 +77,14 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
      * if the move is valid
      */
     public void moveRight() {
-        if (canMove(currentBlock, currentBlock.x, currentBlock.y + 1)) { // Check if can move right
-            currentBlock.y++; // Increase Y coordinate (move right)
-        }
+        engine.moveRight();
     }
 
     /**
      * Rotates the current block if the rotation is valid
-     * Creates a temporary rotated block to check validity
      */
     public void rotateBlock() {
-        // Create a copy of the current block to test rotation
-        Block rotatedBlock = new Block(currentBlock.shape, currentBlock.color); // Create copy
-        rotatedBlock.rotate(); // Rotate the copy
-        
-        // Check if the rotated position is valid
-        if (canMove(rotatedBlock, currentBlock.x, currentBlock.y)) { // If rotation is valid
-            currentBlock.rotate(); // Apply rotation to actual block
-        }
+        engine.rotateBlock();
     }
 
     /**
@@ -213,85 +94,16 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
      * @return true if the block moved down, false if it was placed
      */
     public boolean moveDown() {
-        if (canMove(currentBlock, currentBlock.x + 1, currentBlock.y)) { // Check if can move down
-            currentBlock.x++; // Increase X coordinate (move down)
-            return true; // Block moved successfully
-        } else {
-            placeBlock(); // Place the block on the board
-            return false; // Block couldn't move
-        }
-    }
-
-    /**
-     * Places the current block on the game board
-     * Marks the cells as filled and prepares the next block
-     */
-    private void placeBlock() {
-        // Add the block to the game board
-        for (int i = 0; i < currentBlock.shape.length; i++) { // Iterate through rows
-            for (int j = 0; j < currentBlock.shape[0].length; j++) { // Iterate through columns
-                if (currentBlock.shape[i][j] != 0) { // If this cell is part of the block
-                    gameBoard[currentBlock.x + i][currentBlock.y + j] = 1; // Mark as filled
-                }
-            }
-        }
-        
-        checkCompletedRows(); // Check for completed rows
-        currentBlock = blockQueue.poll(); // Get the next block from queue
-        generateNewBlock(); // Generate a new block for the queue
-    }
-
-    /**
-     * Checks for completed rows and updates the score
-     * A row is complete when all cells are filled
-     */
-    private void checkCompletedRows() {
-        for (int i = 0; i < BOARD_HEIGHT; i++) { // Check each row
-            boolean isComplete = true; // Assume row is complete
-            
-            // Check if all cells in the row are filled
-            for (int j = 0; j < BOARD_WIDTH; j++) { // Check each column
-                if (gameBoard[i][j] == 0) { // If any cell is empty
-                    isComplete = false; // Row is not complete
-                    break; // No need to check further
-                }
-            }
-            
-            if (isComplete) { // If row is complete
-                removeRow(i); // Remove the row
-                score += 100; // Increase the score
-            }
-        }
-    }
-
-    /**
-     * Removes a completed row and shifts all rows above it down
-     * 
-     * @param row The index of the row to remove
-     */
-    private void removeRow(int row) {
-        // Shift all rows above the completed row down
-        for (int i = row; i > 0; i--) { // Start from completed row and move up
-            gameBoard[i] = Arrays.copyOf(gameBoard[i - 1], BOARD_WIDTH); // Copy row above
-        }
-        
-        Arrays.fill(gameBoard[0], 0); // Clear the top row (now empty)
+        return engine.moveDown();
     }
 
     /**
      * Checks if the game is over
-     * Game is over when blocks reach the top of the board
      * 
      * @return true if game is over, false otherwise
      */
     public boolean isGameOver() {
-        // Check if any cell in the top row is filled
-        for (int j = 0; j < BOARD_WIDTH; j++) { // Check each column in top row
-            if (gameBoard[0][j] != 0) { // If any cell is filled
-                return true; // Game is over
-            }
-        }
-        return false; // Game is not over
+        return engine.isGameOver();
     }
 
     /**
@@ -320,70 +132,13 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
         // Enable anti-aliasing for smoother rendering
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         
-        // Draw the game board background
-        g2d.setColor(BOARD_BACKGROUND); // Set background color
-        g2d.fillRect(0, 0, getWidth(), getHeight()); // Fill the entire panel
-        
-        // Draw the grid lines
-        g2d.setColor(GRID_COLOR); // Set grid color
-        for (int i = 0; i <= BOARD_HEIGHT; i++) { // Draw horizontal lines
-            g2d.drawLine(0, i * TILE_SIZE, BOARD_WIDTH * TILE_SIZE, i * TILE_SIZE);
-        }
-        for (int j = 0; j <= BOARD_WIDTH; j++) { // Draw vertical lines
-            g2d.drawLine(j * TILE_SIZE, 0, j * TILE_SIZE, BOARD_HEIGHT * TILE_SIZE);
-        }
-        
-        // Draw the filled cells on the game board
-        for (int i = 0; i < BOARD_HEIGHT; i++) { // Iterate through rows
-            for (int j = 0; j < BOARD_WIDTH; j++) { // Iterate through columns
-                if (gameBoard[i][j] != 0) { // If cell is filled
-                    // Draw filled cell with gradient
-                    GradientPaint gradient = new GradientPaint(
-                        j * TILE_SIZE, i * TILE_SIZE, Color.LIGHT_GRAY,
-                        (j + 1) * TILE_SIZE, (i + 1) * TILE_SIZE, Color.DARK_GRAY
-                    );
-                    g2d.setPaint(gradient); // Set gradient paint
-                    g2d.fillRect(j * TILE_SIZE + 1, i * TILE_SIZE + 1, TILE_SIZE - 1, TILE_SIZE - 1); // Fill cell
-                    
-                    // Draw cell border
-                    g2d.setColor(Color.GRAY); // Set border color
-                    g2d.drawRect(j * TILE_SIZE + 1, i * TILE_SIZE + 1, TILE_SIZE - 2, TILE_SIZE - 2); // Draw border
-                }
-            }
-        }
-
-        // Draw the current falling block
-        if (currentBlock != null) { // If there is a current block
-            // Create gradient for current block
-            GradientPaint blockGradient = new GradientPaint(
-                0, 0, currentBlock.color,
-                TILE_SIZE, TILE_SIZE, currentBlock.color.darker()
-            );
-            g2d.setPaint(blockGradient); // Set gradient paint
-            
-            // Draw each cell of the current block
-            for (int i = 0; i < currentBlock.shape.length; i++) { // Iterate through rows
-                for (int j = 0; j < currentBlock.shape[0].length; j++) { // Iterate through columns
-                    if (currentBlock.shape[i][j] != 0) { // If this cell is part of the block
-                        // Calculate position
-                        int x = (currentBlock.y + j) * TILE_SIZE; // X coordinate
-                        int y = (currentBlock.x + i) * TILE_SIZE; // Y coordinate
-                        
-                        // Draw filled cell
-                        g2d.fillRect(x + 1, y + 1, TILE_SIZE - 1, TILE_SIZE - 1); // Fill cell
-                        
-                        // Draw cell border
-                        g2d.setColor(currentBlock.color.darker()); // Set border color
-                        g2d.drawRect(x + 1, y + 1, TILE_SIZE - 2, TILE_SIZE - 2); // Draw border
-                    }
-                }
-            }
-        }
+        // Draw the cached board image and the falling block (clipped to the dirty region)
+        renderer.paint(g2d, engine.getBoard(), engine.getCurrentBlock());
 
         // Draw the score
         g2d.setColor(Color.WHITE); // Set text color
         g2d.setFont(SCORE_FONT); // Set font
-        g2d.drawString("Score: " + score, 10, 20); // Draw score text
+        g2d.drawString("Score: " + engine.getScore(), 10, 20); // Draw score text
         
         // Draw pause message if game is paused
         if (isPaused) { // If game is paused
@@ -415,12 +170,39 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
             g2d.drawString(gameOverMsg, (getWidth() - msgWidth) / 2, getHeight() / 2 - 20); // Draw centered text
             
             // Draw final score
-            String scoreMsg = "Final Score: " + score; // Score message
+            String scoreMsg = "Final Score: " + engine.getScore(); // Score message
             msgWidth = fm.stringWidth(scoreMsg); // Calculate text width
             g2d.drawString(scoreMsg, (getWidth() - msgWidth) / 2, getHeight() / 2 + 20); // Draw centered text
         }
     }
 
+    /**
+     * Repaints only what an update changed
+     * That is the falling block's old and new area plus any board rows touched by a lock.
+     * 
+     * @param before The falling block's area before the update
+     * @param piecesBefore The number of locked blocks before the update
+     * @param linesBefore The number of cleared rows before the update
+     */
+    private void repaintChanges(Rectangle before, int piecesBefore, int linesBefore) {
+        if (engine.getPiecesPlaced() != piecesBefore) { // A block was locked into the board
+            int from = engine.getLastLockTop();
+            int to = engine.getLastLockBottom();
+            if (engine.getLinesCleared() != linesBefore) {
+                from = 0; // Cleared rows shift everything above them down
+            }
+            renderer.invalidateRows(from, to);
+            repaint(renderer.rowBounds(from, to));
+        }
+        if (before != null) {
+            repaint(before); // Erase the old position
+        }
+        Rectangle after = renderer.pieceBounds(engine.getCurrentBlock());
+        if (after != null && !after.equals(before)) {
+            repaint(after); // Draw the new position
+        }
+    }
+
     /**
      * Handles game updates on timer ticks
      * Moves the current block down and checks game state
@@ -430,13 +212,25 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
     @Override
     public void actionPerformed(ActionEvent e) {
         if (!isGameOver()) { // If game is not over
+            Rectangle before = renderer.pieceBounds(engine.getCurrentBlock());
+            int pieces = engine.getPiecesPlaced();
+            int lines = engine.getLinesCleared();
+            if (isAutoPlay && plannedPiece != pieces) { // New block since the last decision
+                TetrisAutoPlayer.Move move = autoPlayer.bestMove(engine);
+                if (move != null) {
+                    TetrisAutoPlayer.apply(engine, move); // Gravity does the rest
+                }
+                plannedPiece = pieces;
+            }
             if (!moveDown()) { // Try to move block down
                 if (isGameOver()) { // Check if game is now over
                     timer.stop(); // Stop the timer
+                    renderer.invalidateRows(0, BOARD_HEIGHT);
                     repaint(); // Redraw to show game over
+                    return;
                 }
             }
-            repaint(); // Redraw the game board
+            repaintChanges(before, pieces, lines); // Redraw only the changed areas
         }
     }
 
@@ -447,6 +241,9 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
      */
     @Override
     public void keyPressed(KeyEvent e) {
+        Rectangle before = renderer.pieceBounds(engine.getCurrentBlock());
+        int pieces = engine.getPiecesPlaced();
+        int lines = engine.getLinesCleared();
         if (!isPaused && timer.isRunning()) { // Only process if game is running
             switch (e.getKeyCode()) { // Check which key was pressed
                 case KeyEvent.VK_LEFT: // Left arrow key
@@ -463,17 +260,21 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
                     break;
                 case KeyEvent.VK_SPACE: // Space key
                     // Hard drop - move block down until it can't move further
-                    while (moveDown()) {} // Keep moving down until blocked
+                    engine.hardDrop(); // Keep moving down until blocked
                     break;
             }
         }
         
         // Pause/unpause with P key regardless of game state
         if (e.getKeyCode() == KeyEvent.VK_P) { // P key
-            togglePause(); // Toggle pause state
+            togglePause(); // Toggle pause state (repaints the whole panel)
+        } else {
+            if (e.getKeyCode() == KeyEvent.VK_A) { // A key
+                isAutoPlay = !isAutoPlay; // Toggle the autoplayer
+                plannedPiece = -1; // Plan the current block on the next tick
+            }
+            repaintChanges(before, pieces, lines); // Redraw only the changed areas
         }
-        
-        repaint(); // Redraw the game board
     }
 
     /**
@@ -528,7 +329,7 @@ public class TetrisGame extends JPanel implements ActionListener, KeyListener {
             // Create instructions label
             JLabel instructionsLabel = new JLabel(
                 "<html><center>Controls: ← → Move | ↑ Rotate | ↓ Soft Drop<br>" +
-                "Space: Hard Drop | P: Pause</center></html>"
+                "Space: Hard Drop | P: Pause | A: Autoplay</center></html>"
             ); // Create label with HTML formatting
             instructionsLabel.setForeground(Color.LIGHT_GRAY); // Set text color
             instructionsLabel.setFont(new Font("Arial", Font.PLAIN, 12)); // Set font
@@ -0,0 +1,180 @@
+package Question3;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Runs large batches of headless Tetris games to evaluate move-selection policies
+ * Games are spread over all cores with a parallel stream and every game is seeded
+ * from the batch seed, so a batch gives the same statistics on every run.
+ */
+public class TetrisSimulator {
+
+    /**
+     * A move-selection policy
+     * Implementations must be stateless or thread-safe because games run in parallel.
+     */
+    public interface Policy {
+        /**
+         * Positions the engine's current block with moveLeft/moveRight/rotateBlock
+         * The simulator hard-drops the block afterwards.
+         *
+         * @param engine The game to play
+         * @param random Per-game random generator for randomised policies
+         */
+        void place(TetrisEngine engine, SplittableRandom random);
+    }
+
+    /**
+     * Policy that picks a random rotation and a random horizontal shift
+     */
+    public static final Policy RANDOM_POLICY = (engine, random) -> {
+        int rotations = random.nextInt(4); // Rotate 0-3 times
+        for (int i = 0; i < rotations; i++) {
+            engine.rotateBlock();
+        }
+        int shift = random.nextInt(TetrisEngine.BOARD_WIDTH) - TetrisEngine.BOARD_WIDTH / 2; // Move left or right
+        for (int i = 0; i < Math.abs(shift); i++) {
+            if (shift < 0) {
+                engine.moveLeft();
+            } else {
+                engine.moveRight();
+            }
+        }
+    };
+
+    /**
+     * Aggregated statistics of a batch of games
+     * Mutable accumulator used by the parallel stream's collect step.
+     */
+    public static class BatchStats {
+        long games; // Number of finished games
+        long totalScore; // Sum of scores
+        double sumSquares; // Sum of squared scores for the standard deviation
+        int minScore = Integer.MAX_VALUE; // Lowest score
+        int maxScore = Integer.MIN_VALUE; // Highest score
+        long totalLines; // Sum of cleared rows
+        long totalPieces; // Sum of locked blocks
+
+        /**
+         * Adds the result of one finished game
+         *
+         * @param engine The finished game
+         */
+        void accept(TetrisEngine engine) {
+            int score = engine.getScore();
+            games++;
+            totalScore += score;
+            sumSquares += (double) score * score;
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+            totalLines += engine.getLinesCleared();
+            totalPieces += engine.getPiecesPlaced();
+        }
+
+        /**
+         * Merges the statistics of another partial batch into this one
+         *
+         * @param other The statistics to merge
+         */
+        void combine(BatchStats other) {
+            games += other.games;
+            totalScore += other.totalScore;
+            sumSquares += other.sumSquares;
+            minScore = Math.min(minScore, other.minScore);
+            maxScore = Math.max(maxScore, other.maxScore);
+            totalLines += other.totalLines;
+            totalPieces += other.totalPieces;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public double getMeanScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+
+        public double getScoreStdDev() {
+            if (games == 0) {
+                return 0;
+            }
+            double mean = getMeanScore();
+            return Math.sqrt(Math.max(0, sumSquares / games - mean * mean));
+        }
+
+        public int getMinScore() {
+            return minScore;
+        }
+
+        public int getMaxScore() {
+            return maxScore;
+        }
+
+        public double getMeanLines() {
+            return games == 0 ? 0 : (double) totalLines / games;
+        }
+
+        public long getTotalPieces() {
+            return totalPieces;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d mean=%.1f sd=%.1f min=%d max=%d lines/game=%.2f pieces=%d",
+                    games, getMeanScore(), getScoreStdDev(), minScore, maxScore, getMeanLines(), totalPieces);
+        }
+    }
+
+    /**
+     * Plays one game to the end
+     *
+     * @param policy The policy choosing where each block goes
+     * @param seed Seed of the block sequence and the policy's generator
+     * @param maxPieces Upper bound on locked blocks, stops games that never end
+     * @return The finished game
+     */
+    public static TetrisEngine playGame(Policy policy, long seed, int maxPieces) {
+        TetrisEngine engine = new TetrisEngine(seed);
+        SplittableRandom random = new SplittableRandom(~seed); // Independent stream for the policy
+        while (!engine.isGameOver() && engine.getPiecesPlaced() < maxPieces) {
+            policy.place(engine, random); // Let the policy position the block
+            engine.hardDrop(); // Lock it in
+        }
+        return engine;
+    }
+
+    /**
+     * Plays a batch of games in parallel and aggregates their scores
+     *
+     * @param policy The policy to evaluate
+     * @param games Number of games to play
+     * @param seed Batch seed, game i uses a seed derived from it
+     * @param maxPieces Upper bound on locked blocks per game
+     * @return The aggregated statistics
+     */
+    public static BatchStats runBatch(Policy policy, int games, long seed, int maxPieces) {
+        long[] seeds = new SplittableRandom(seed).longs(games).toArray(); // Fixed seed per game index
+        return IntStream.range(0, games)
+                .parallel()
+                .mapToObj(i -> playGame(policy, seeds[i], maxPieces))
+                .collect(BatchStats::new, BatchStats::accept, BatchStats::combine);
+    }
+
+    /**
+     * Runs a batch with the random policy and prints throughput and score statistics
+     *
+     * @param args Optional number of games (default 100000)
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        runBatch(RANDOM_POLICY, Math.min(games, 10_000), 1L, 10_000); // Warm up the JIT
+
+        long start = System.nanoTime();
+        BatchStats stats = runBatch(RANDOM_POLICY, games, 42L, 10_000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(stats);
+        System.out.printf("%.0f games/minute on %d cores%n", games / seconds * 60, Runtime.getRuntime().availableProcessors());
+    }
+}
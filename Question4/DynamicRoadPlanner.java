@@ -0,0 +1,231 @@
+package Question4;
+
+/**
+ * DynamicRoadPlanner keeps the minimum number of roads to traverse up to date while packages appear and
+ * get collected, on a tree of locations. It uses the core characterization of {@link TreeRoadPlanner}:
+ * the answer is 2 * (core roads), and a road between v and its child u (rooted at location 0) is in the core
+ * when u's subtree holds a package at least r roads below u ("deep") and the rest of the tree holds a package
+ * at least r roads from v ("far above").
+ * Roads with a deep package below them form a subtree containing the root, and the deep roads without a far
+ * package above them form a single chain starting at the root, so
+ * core roads = (roads with a deep package below) - (length of that chain).
+ * Every change only updates counts on the ancestors of the changed location, and the chain is walked from the
+ * root, so one update takes time proportional to the depth of the tree, not its size.
+ */
+public class DynamicRoadPlanner {
+
+    private final int n; // Number of locations
+    private final int radius; // Pickup radius
+    private final int[] parent; // Parent towards location 0, -1 for the root
+    private final boolean[] hasPackage;
+    private final int[] count; // Packages in each subtree
+    private final int[] deep; // Packages at least radius roads below each location
+    private final int[] near; // near[v * radius + d]: packages in v's subtree at most d roads below v, d < radius
+    private final int[] deepChildren; // Children whose subtree holds a deep package
+    private final int[] deepChildXor; // XOR of those children, the child itself while there is exactly one
+    private int packageCount;
+    private int deepRoads; // Roads to a child with a deep package
+
+    /**
+     * Constructor that builds the road tree with the default pickup radius of 2 roads.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations.
+     * @throws IllegalArgumentException If the roads do not form a tree over all locations.
+     */
+    public DynamicRoadPlanner(int[] packages, int[][] roads) {
+        this(packages, roads, TreeRoadPlanner.RADIUS);
+    }
+
+    /**
+     * Constructor that builds the road tree and the counts for the initial packages in O(n * radius) time.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations.
+     * @param radius Packages within this many roads of a visited location are collected.
+     * @throws IllegalArgumentException If the roads do not form a tree over all locations or the radius is negative.
+     */
+    public DynamicRoadPlanner(int[] packages, int[][] roads, int radius) {
+        n = packages.length;
+        if (radius < 0) {
+            throw new IllegalArgumentException("Negative pickup radius: " + radius);
+        }
+        if (n > 0 && roads.length != n - 1) {
+            throw new IllegalArgumentException("A tree over " + n + " locations has " + (n - 1) + " roads, not " + roads.length);
+        }
+        this.radius = radius;
+        RoadGraph graph = new RoadGraph(n, roads);
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+
+        // Breadth-first order from location 0 gives parents before children
+        parent = new int[n];
+        int[] order = new int[n];
+        int size = 0;
+        if (n > 0) {
+            RoadGraph.Bfs search = new RoadGraph.Bfs(n);
+            search.reset();
+            search.visit(0);
+            parent[0] = -1;
+            order[size++] = 0;
+            for (int i = 0; i < size; i++) {
+                int v = order[i];
+                for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                    int u = neighbors[j];
+                    if (search.visit(u)) {
+                        parent[u] = v;
+                        order[size++] = u;
+                    }
+                }
+            }
+        }
+        if (size != n) {
+            throw new IllegalArgumentException("The roads do not connect all " + n + " locations");
+        }
+
+        hasPackage = new boolean[n];
+        count = new int[n];
+        deep = new int[n];
+        near = new int[n * radius];
+        deepChildren = new int[n];
+        deepChildXor = new int[n];
+        for (int i = n - 1; i >= 0; i--) { // Children before parents
+            int v = order[i];
+            if (packages[v] == 1) {
+                hasPackage[v] = true;
+                packageCount++;
+                count[v]++;
+                for (int d = 0; d < radius; d++) {
+                    near[v * radius + d]++;
+                }
+            }
+            deep[v] = count[v] - (radius == 0 ? 0 : near[v * radius + radius - 1]);
+            int p = parent[v];
+            if (p >= 0) {
+                count[p] += count[v];
+                for (int d = 1; d < radius; d++) { // One road further below the parent
+                    near[p * radius + d] += near[v * radius + d - 1];
+                }
+                if (deep[v] > 0) {
+                    deepRoads++;
+                    deepChildren[p]++;
+                    deepChildXor[p] ^= v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a package at a location; nothing changes if it already holds one.
+     *
+     * @param location The location of the new package.
+     * @return The updated minimum number of roads to traverse.
+     * @throws IllegalArgumentException If the location is unknown.
+     */
+    public int addPackage(int location) {
+        checkLocation(location);
+        if (!hasPackage[location]) {
+            hasPackage[location] = true;
+            update(location, 1);
+        }
+        return minRoads();
+    }
+
+    /**
+     * Removes the package at a location, e.g. after it was collected; nothing changes if it holds none.
+     *
+     * @param location The location of the package.
+     * @return The updated minimum number of roads to traverse.
+     * @throws IllegalArgumentException If the location is unknown.
+     */
+    public int removePackage(int location) {
+        checkLocation(location);
+        if (hasPackage[location]) {
+            hasPackage[location] = false;
+            update(location, -1);
+        }
+        return minRoads();
+    }
+
+    public boolean hasPackage(int location) {
+        checkLocation(location);
+        return hasPackage[location];
+    }
+
+    /**
+     * Computes the minimum number of roads to traverse over all start locations, from the maintained counts.
+     * Walks the chain of deep roads without a far package above them, starting at the root.
+     *
+     * @return The minimum round trip length, 0 when there are no locations.
+     */
+    public int minRoads() {
+        int chain = 0;
+        int v = 0;
+        while (n > 0 && deepChildren[v] == 1) { // With two deep children each one sees the other's package
+            int u = deepChildXor[v];
+            if (hasFarPackageAbove(u)) {
+                break; // Every road below u has the same far package above it
+            }
+            chain++;
+            v = u;
+        }
+        return 2 * (deepRoads - chain);
+    }
+
+    /**
+     * Checks whether a package outside u's subtree is at least radius roads away from u's parent.
+     */
+    private boolean hasFarPackageAbove(int u) {
+        int v = parent[u];
+        int outside = packageCount - count[u];
+        if (radius == 0) {
+            return outside > 0;
+        }
+        // Packages within radius - 1 roads of v, outside u's subtree: walk up through v's ancestors
+        int close = -within(u, radius - 2);
+        int below = -1; // The ancestor just below the current one, whose subtree was already counted
+        for (int t = 0; t < radius && v >= 0; t++) {
+            close += within(v, radius - 1 - t) - (below < 0 ? 0 : within(below, radius - 2 - t));
+            below = v;
+            v = parent[v];
+        }
+        return outside - close > 0;
+    }
+
+    /**
+     * @return The packages in v's subtree at most d roads below v, 0 for negative d.
+     */
+    private int within(int v, int d) {
+        return d < 0 ? 0 : near[v * radius + d];
+    }
+
+    /**
+     * Adds delta to the counts of all ancestors of a location whose subtree contains it.
+     */
+    private void update(int location, int delta) {
+        packageCount += delta;
+        int distance = 0;
+        for (int v = location; v >= 0; v = parent[v], distance++) {
+            count[v] += delta;
+            for (int d = distance; d < radius; d++) {
+                near[v * radius + d] += delta;
+            }
+            if (distance >= radius) {
+                boolean wasDeep = deep[v] > 0;
+                deep[v] += delta;
+                int p = parent[v];
+                if (p >= 0 && wasDeep != deep[v] > 0) { // The road to the parent changed its deep state
+                    deepRoads += wasDeep ? -1 : 1;
+                    deepChildren[p] += wasDeep ? -1 : 1;
+                    deepChildXor[p] ^= v;
+                }
+            }
+        }
+    }
+
+    private void checkLocation(int location) {
+        if (location < 0 || location >= n) {
+            throw new IllegalArgumentException("Unknown location: " + location);
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package Question4;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public class MinimumNumberOfRoad {
     /**
@@ -27,6 +25,22 @@ public class MinimumNumberOfRoad {
         // Calculate the minimum number of roads to traverse for Input 2
         int minRoads2 = findMinRoads(packages2, roads2);
         System.out.println("Minimum number of roads to traverse for Input 2: " + minRoads2);
+
+        // Same results with the start locations evaluated in parallel
+        System.out.println("Minimum number of roads (parallel) for Input 1: " + findMinRoads(packages1, roads1, true));
+        System.out.println("Minimum number of roads (parallel) for Input 2: " + findMinRoads(packages2, roads2, true));
+
+        System.out.println("Minimum number of roads (tree engine) for Input 1: " + findMinRoadsTree(packages1, roads1));
+        System.out.println("Minimum number of roads (tree engine) for Input 2: " + findMinRoadsTree(packages2, roads2));
+
+        // Actual round trip for Input 2 when packages have to be passed within 1 road
+        TreeRoadPlanner.Route route = planRoute(packages2, roads2, 1);
+        System.out.println("Route with pickup radius 1 for Input 2: " + route.roads() + " roads, " + Arrays.toString(route.walk()));
+
+        // Packages of Input 2 changing over time, updated incrementally
+        DynamicRoadPlanner planner = new DynamicRoadPlanner(packages2, roads2);
+        System.out.println("After a new package at location 6: " + planner.addPackage(6));
+        System.out.println("After collecting the package at location 7: " + planner.removePackage(7));
     }
 
     /**
@@ -38,86 +52,121 @@ public class MinimumNumberOfRoad {
      * @return The minimum number of roads to traverse.
      */
     public static int findMinRoads(int[] packages, int[][] roads) {
-        int n = packages.length; // Number of locations (nodes)
-        List<List<Integer>> graph = buildGraph(n, roads); // Create the graph based on roads
+        return findMinRoads(packages, roads, false);
+    }
 
-        int minRoads = Integer.MAX_VALUE; // Initialize the minimum roads as a large value
+    /**
+     * This method finds the minimum number of roads to traverse, optionally evaluating the start locations in parallel.
+     * Every start only reads the shared graph and keeps its queue and visited marks in its worker thread's own
+     * search state, so the starts are independent and their results are combined with a minimum.
+     * Packages within 2 roads are collected by visiting them; the packages array is never modified, so every start
+     * sees all packages and the caller can reuse the array.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations.
+     * @param parallel true to evaluate the start locations on all available cores.
+     * @return The minimum number of roads to traverse.
+     */
+    public static int findMinRoads(int[] packages, int[][] roads, boolean parallel) {
+        int n = packages.length; // Number of locations (nodes)
+        RoadGraph graph = new RoadGraph(n, roads); // Create the graph based on roads
+        if (!parallel) {
+            RoadGraph.Bfs search = new RoadGraph.Bfs(n); // Queue and visited marks shared by all starts
+            int minRoads = Integer.MAX_VALUE; // Initialize the minimum roads as a large value
+
+            // Try each location as the starting point
+            for (int start = 0; start < n; start++) {
+                minRoads = Math.min(minRoads, roadsFrom(start, graph, search));
+            }
+            return minRoads; // Return the minimum number of roads to traverse
+        }
 
-        // Try each location as the starting point
-        for (int start = 0; start < n; start++) {
-            boolean[] visited = new boolean[n]; // Track visited locations during traversal
-            int roadsTraversed = 0; // Counter for the number of roads traversed
+        ThreadLocal<RoadGraph.Bfs> searches = ThreadLocal.withInitial(() -> new RoadGraph.Bfs(n)); // One per worker thread
+        return IntStream.range(0, n).parallel()
+                .map(start -> roadsFrom(start, graph, searches.get()))
+                .min()
+                .orElse(Integer.MAX_VALUE); // Same result as the sequential loop when there are no locations
+    }
 
-            // Perform BFS to collect all packages within a distance of 2 roads
-            roadsTraversed += bfs(start, graph, packages, visited);
+    /**
+     * This method counts the roads traversed from one starting location: collecting the packages and backtracking.
+     *
+     * @param start The starting location.
+     * @param graph The graph representing the locations and roads.
+     * @param search The queue and visited marks of the calling thread.
+     * @return The number of roads traversed from this start location.
+     */
+    private static int roadsFrom(int start, RoadGraph graph, RoadGraph.Bfs search) {
+        search.reset(); // Forget the visited locations of the previous start
+        int roadsTraversed = 0; // Counter for the number of roads traversed
 
-            // Backtrack to the start location
-            roadsTraversed += backtrack(start, graph, visited);
+        // Perform BFS to collect all packages within a distance of 2 roads
+        roadsTraversed += bfs(start, graph, search);
 
-            // Update the minimum roads if fewer roads are found
-            minRoads = Math.min(minRoads, roadsTraversed);
-        }
+        // Backtrack to the start location
+        roadsTraversed += backtrack(start, graph, search);
 
-        return minRoads; // Return the minimum number of roads to traverse
+        return roadsTraversed;
     }
 
     /**
-     * Builds a graph where each node has a list of its neighbors based on the roads provided.
+     * This method finds the minimum number of roads to traverse when the roads form a tree.
+     * Instead of one traversal per start location it computes the answer for all starts together in linear time,
+     * see {@link TreeRoadPlanner}. Unlike findMinRoads, it counts the full round trip needed to come within
+     * 2 roads of every package and return to the start.
      *
-     * @param n The total number of locations.
-     * @param roads The roads connecting the locations.
-     * @return A list of lists where each list contains the neighbors of a particular location.
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations, forming a tree.
+     * @return The minimum number of roads to traverse.
+     * @throws IllegalArgumentException If the roads do not form a tree.
      */
-    private static List<List<Integer>> buildGraph(int n, int[][] roads) {
-        List<List<Integer>> graph = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            graph.add(new ArrayList<>());
-        }
-
-        // Add edges (roads) to the graph
-        for (int[] road : roads) {
-            int u = road[0];
-            int v = road[1];
-            graph.get(u).add(v);
-            graph.get(v).add(u); // Undirected graph
-        }
+    public static int findMinRoadsTree(int[] packages, int[][] roads) {
+        return new TreeRoadPlanner(packages, roads).minRoads();
+    }
 
-        return graph;
+    /**
+     * This method plans the shortest round trip that passes within a given radius of every package, on a tree.
+     * Leaf subtrees whose packages are all within the radius of the rest are pruned in linear time,
+     * see {@link TreeRoadPlanner}.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations, forming a tree.
+     * @param radius Packages within this many roads of a visited location are collected.
+     * @return The route from the best start location, or null when there are no locations.
+     * @throws IllegalArgumentException If the roads do not form a tree or the radius is negative.
+     */
+    public static TreeRoadPlanner.Route planRoute(int[] packages, int[][] roads, int radius) {
+        return new TreeRoadPlanner(packages, roads, radius).bestRoute();
     }
 
     /**
-     * This method performs a BFS starting from a location to collect all packages within a distance of 2 roads.
-     * It also counts the roads traversed during the process.
+     * This method performs a BFS starting from a location over all locations within a distance of 2 roads.
+     * It only measures distances and counts the roads traversed; the packages are left untouched.
      *
      * @param start The starting location.
      * @param graph The graph representing the locations and roads.
-     * @param packages The array containing package data at each location.
-     * @param visited The array keeping track of visited locations.
-     * @return The number of roads traversed while collecting packages.
+     * @param search The queue and visited marks of the current start location.
+     * @return The number of roads traversed within a distance of 2 roads.
      */
-    private static int bfs(int start, List<List<Integer>> graph, int[] packages, boolean[] visited) {
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(start); // Add the start location to the queue
-        visited[start] = true;
+    private static int bfs(int start, RoadGraph graph, RoadGraph.Bfs search) {
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        search.offer(start); // Add the start location to the queue
+        search.visit(start);
 
         int roadsTraversed = 0;
 
         // Perform BFS up to a maximum distance of 2
         for (int level = 0; level < 2; level++) {
-            int size = queue.size();
+            int size = search.size();
             for (int i = 0; i < size; i++) {
-                int current = queue.poll(); // Dequeue the current location
-
-                // If there is a package at the current location, collect it
-                if (packages[current] == 1) {
-                    packages[current] = 0; // Mark package as collected
-                }
+                int current = search.poll(); // Dequeue the current location; only its distance matters here
 
                 // Explore the neighbors of the current location
-                for (int neighbor : graph.get(current)) {
-                    if (!visited[neighbor]) {
-                        visited[neighbor] = true;
-                        queue.add(neighbor); // Add neighbor to the queue
+                for (int j = offsets[current]; j < offsets[current + 1]; j++) {
+                    int neighbor = neighbors[j];
+                    if (search.visit(neighbor)) {
+                        search.offer(neighbor); // Add neighbor to the queue
                         roadsTraversed++; // Count the road traversed
                     }
                 }
@@ -132,19 +181,21 @@ public class MinimumNumberOfRoad {
      *
      * @param start The starting location.
      * @param graph The graph representing the locations and roads.
-     * @param visited The array keeping track of visited locations.
+     * @param search The queue and visited marks of the current start location.
      * @return The number of roads traversed while backtracking to the starting location.
      */
-    private static int backtrack(int start, List<List<Integer>> graph, boolean[] visited) {
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(start);
-        visited[start] = true;
+    private static int backtrack(int start, RoadGraph graph, RoadGraph.Bfs search) {
+        int[] offsets = graph.offsets();
+        int[] neighbors = graph.neighbors();
+        search.clearQueue(); // Start over with an empty queue, keeping the visited marks
+        search.offer(start);
+        search.visit(start);
 
         int roadsTraversed = 0;
 
         // Backtrack using BFS until the starting location is reached
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
+        while (!search.isEmpty()) {
+            int current = search.poll();
 
             // If we reach the start location, stop the backtracking
             if (current == start) {
@@ -152,10 +203,10 @@ public class MinimumNumberOfRoad {
             }
 
             // Explore the neighbors of the current location
-            for (int neighbor : graph.get(current)) {
-                if (!visited[neighbor]) {
-                    visited[neighbor] = true;
-                    queue.add(neighbor);
+            for (int j = offsets[current]; j < offsets[current + 1]; j++) {
+                int neighbor = neighbors[j];
+                if (search.visit(neighbor)) {
+                    search.offer(neighbor);
                     roadsTraversed++; // Count the road traversed
                 }
             }
@@ -0,0 +1,142 @@
+package Question4;
+
+import java.util.Arrays;
+
+/**
+ * RoadGraph stores the road network in compressed sparse row (CSR) form: the neighbors of location v
+ * are neighbors()[offsets()[v] .. offsets()[v + 1]). Two int arrays replace one list object and one boxed
+ * Integer per road end, and scanning a location's roads is a plain array loop.
+ */
+public final class RoadGraph {
+
+    private final int n; // Number of locations
+    private final int[] offsets; // Start of each location's neighbors, n + 1 entries
+    private final int[] neighbors; // Both ends of every road
+
+    /**
+     * Builds the graph from a road list.
+     *
+     * @param n The total number of locations.
+     * @param roads The roads connecting the locations, as pairs of locations.
+     * @throws IllegalArgumentException If a road refers to an unknown location.
+     */
+    public RoadGraph(int n, int[][] roads) {
+        this.n = n;
+        offsets = new int[n + 1];
+        for (int[] road : roads) { // Count the degree of every location
+            if (road[0] < 0 || road[0] >= n || road[1] < 0 || road[1] >= n) {
+                throw new IllegalArgumentException("Road to unknown location: " + Arrays.toString(road));
+            }
+            offsets[road[0] + 1]++;
+            offsets[road[1] + 1]++;
+        }
+        for (int v = 0; v < n; v++) { // Prefix sums give the row starts
+            offsets[v + 1] += offsets[v];
+        }
+        neighbors = new int[2 * roads.length];
+        int[] fill = Arrays.copyOf(offsets, n); // Next free slot per location
+        for (int[] road : roads) {
+            neighbors[fill[road[0]]++] = road[1];
+            neighbors[fill[road[1]]++] = road[0]; // Undirected graph
+        }
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    /**
+     * @return The number of roads.
+     */
+    public int roadCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * @return The row offsets, shared and not to be modified.
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * @return The neighbor array indexed by the offsets, shared and not to be modified.
+     */
+    public int[] neighbors() {
+        return neighbors;
+    }
+
+    /**
+     * Reusable breadth-first search state for one thread: an int ring-buffer queue and an epoch-stamped
+     * visited array. Starting a new search only increments the epoch, so running one search per start
+     * location allocates nothing and never clears an array of size n.
+     */
+    public static final class Bfs {
+        private final int[] queue; // Ring buffer, capacity is a power of two
+        private final int mask;
+        private int head, tail; // Poll at head, offer at tail (both wrap through the mask)
+        private final int[] stamp; // Epoch in which each location was visited
+        private int epoch;
+
+        /**
+         * @param n The number of locations of the graph to search.
+         */
+        public Bfs(int n) {
+            int capacity = Integer.highestOneBit(Math.max(1, n - 1)) << 1; // Every location is queued at most once
+            queue = new int[capacity];
+            mask = capacity - 1;
+            stamp = new int[n];
+        }
+
+        /**
+         * Starts a new search: forgets all visited marks and empties the queue.
+         */
+        public void reset() {
+            clearQueue();
+            if (++epoch == Integer.MAX_VALUE) { // Stamps would wrap: clear once
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * Marks a location as visited.
+         *
+         * @return true if it was not visited yet in this search.
+         */
+        public boolean visit(int v) {
+            if (stamp[v] == epoch) {
+                return false;
+            }
+            stamp[v] = epoch;
+            return true;
+        }
+
+        public boolean isVisited(int v) {
+            return stamp[v] == epoch;
+        }
+
+        /**
+         * Empties the queue but keeps the visited marks.
+         */
+        public void clearQueue() {
+            head = tail = 0;
+        }
+
+        public void offer(int v) {
+            queue[tail++ & mask] = v;
+        }
+
+        public int poll() {
+            return queue[head++ & mask];
+        }
+
+        public boolean isEmpty() {
+            return head == tail;
+        }
+
+        public int size() {
+            return tail - head;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package Question4;
+
+import java.util.Arrays;
+
+/**
+ * TreeRoadPlanner answers the package collection problem for every start location at once.
+ * A package is collected when the walk passes within a distance of r roads of its location (the pickup
+ * radius, 2 by default), and the walk has to return to its start. On a tree, the roads every walk has to use
+ * form a "core": a road belongs to it when both of its sides still hold a package at least r roads away from
+ * the road's end on that side. The core is what remains after repeatedly pruning leaf subtrees whose packages
+ * are all within r of the rest. A walk from any start has to reach the core, cover it and come back, so
+ * cost(start) = 2 * (core roads + distance from start to the core).
+ * The core is found with one tree DP (farthest package below every node) and one rerooting pass
+ * (farthest package outside every subtree), and the distances to the core with one multi-source BFS,
+ * so all starts together take O(n) time instead of one traversal per start.
+ */
+public class TreeRoadPlanner {
+
+    /** Default pickup radius: packages within this many roads of a visited location are collected */
+    static final int RADIUS = 2;
+
+    /** Distance value for "no package on that side", low enough that adding 1 keeps it negative */
+    private static final int NONE = Integer.MIN_VALUE / 2;
+
+    /**
+     * A planned round trip: the walk as the sequence of visited locations, starting and ending at the start.
+     */
+    public static final class Route {
+        private final int roads;
+        private final int[] walk;
+
+        Route(int[] walk) {
+            this.roads = walk.length - 1;
+            this.walk = walk;
+        }
+
+        /**
+         * @return The number of roads traversed by the walk.
+         */
+        public int roads() {
+            return roads;
+        }
+
+        /**
+         * @return The visited locations in order, roads() + 1 entries; consecutive locations share a road.
+         */
+        public int[] walk() {
+            return walk.clone();
+        }
+    }
+
+    /**
+     * Result of the core analysis, computed once per planner.
+     */
+    private static final class Analysis {
+        final int[] parent; // Parent in the BFS tree from location 0, -1 for the root
+        final boolean[] coreRoad; // coreRoad[u]: the road between u and parent[u] is in the core
+        final int coreRoads;
+        final int[] distance; // Roads to the nearest core (or target) location
+        final int[] toward; // Next location on a shortest path to the core, -1 at distance 0
+
+        Analysis(int[] parent, boolean[] coreRoad, int coreRoads, int[] distance, int[] toward) {
+            this.parent = parent;
+            this.coreRoad = coreRoad;
+            this.coreRoads = coreRoads;
+            this.distance = distance;
+            this.toward = toward;
+        }
+    }
+
+    private final int n; // Number of locations
+    private final int radius; // Pickup radius
+    private final int[] offsets, neighbors; // Adjacency: neighbors of v are neighbors[offsets[v] .. offsets[v + 1])
+    private final boolean[] hasPackage;
+    private Analysis analysis; // Computed on first use
+
+    /**
+     * Constructor that builds the road tree with the default pickup radius of 2 roads.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations.
+     * @throws IllegalArgumentException If the roads do not form a tree over all locations.
+     */
+    public TreeRoadPlanner(int[] packages, int[][] roads) {
+        this(packages, roads, RADIUS);
+    }
+
+    /**
+     * Constructor that builds the road tree.
+     *
+     * @param packages Array representing the locations with packages (1 means package is present, 0 means no package).
+     * @param roads Array of roads represented by pairs of connected locations.
+     * @param radius Packages within this many roads of a visited location are collected.
+     * @throws IllegalArgumentException If the roads do not form a tree over all locations or the radius is negative.
+     */
+    public TreeRoadPlanner(int[] packages, int[][] roads, int radius) {
+        n = packages.length;
+        if (radius < 0) {
+            throw new IllegalArgumentException("Negative pickup radius: " + radius);
+        }
+        if (n > 0 && roads.length != n - 1) {
+            throw new IllegalArgumentException("A tree over " + n + " locations has " + (n - 1) + " roads, not " + roads.length);
+        }
+        this.radius = radius;
+        hasPackage = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            hasPackage[v] = packages[v] == 1;
+        }
+        RoadGraph graph = new RoadGraph(n, roads);
+        offsets = graph.offsets();
+        neighbors = graph.neighbors();
+    }
+
+    /**
+     * Computes the minimum number of roads to traverse from every start location.
+     *
+     * @return The minimum round trip length for each start location.
+     * @throws IllegalArgumentException If the roads do not connect all locations (the input is not a tree).
+     */
+    public int[] minRoadsPerStart() {
+        int[] cost = new int[n];
+        if (n == 0) {
+            return cost;
+        }
+        Analysis a = analyze();
+        for (int v = 0; v < n; v++) {
+            cost[v] = 2 * (a.coreRoads + a.distance[v]);
+        }
+        return cost;
+    }
+
+    /**
+     * Computes the minimum number of roads to traverse over all start locations.
+     *
+     * @return The minimum round trip length, 0 when there are no locations.
+     */
+    public int minRoads() {
+        int best = n == 0 ? 0 : Integer.MAX_VALUE;
+        for (int c : minRoadsPerStart()) {
+            best = Math.min(best, c);
+        }
+        return best;
+    }
+
+    /**
+     * Plans the shortest round trip from a start location: to the nearest core location, once around the core
+     * (every core road twice) and back the same way.
+     *
+     * @param start The start location.
+     * @return The route, with minRoadsPerStart()[start] roads.
+     * @throws IllegalArgumentException If the start location is unknown or the roads do not connect all locations.
+     */
+    public Route route(int start) {
+        if (start < 0 || start >= n) {
+            throw new IllegalArgumentException("Unknown start location: " + start);
+        }
+        Analysis a = analyze();
+        int[] walk = new int[2 * (a.coreRoads + a.distance[start]) + 1];
+        int size = 0;
+        int entry = start;
+        while (a.distance[entry] > 0) { // Follow the BFS pointers to the core
+            walk[size++] = entry;
+            entry = a.toward[entry];
+        }
+        int approach = size;
+
+        // Euler tour of the core from its entry location, with an explicit stack
+        int[] stack = new int[a.coreRoads + 1];
+        int[] cursor = new int[a.coreRoads + 1]; // Next adjacency slot to scan per stack entry
+        int depth = 0;
+        stack[depth] = entry;
+        cursor[depth++] = offsets[entry];
+        walk[size++] = entry;
+        while (depth > 0) {
+            int v = stack[depth - 1];
+            int from = depth > 1 ? stack[depth - 2] : -1;
+            if (cursor[depth - 1] < offsets[v + 1]) {
+                int u = neighbors[cursor[depth - 1]++];
+                boolean core = a.parent[u] == v ? a.coreRoad[u] : a.parent[v] == u && a.coreRoad[v];
+                if (core && u != from) {
+                    stack[depth] = u;
+                    cursor[depth++] = offsets[u];
+                    walk[size++] = u;
+                }
+                continue;
+            }
+            depth--;
+            if (depth > 0) {
+                walk[size++] = stack[depth - 1]; // Back over the road just finished
+            }
+        }
+        for (int i = approach - 1; i >= 0; i--) { // Back to the start the same way
+            walk[size++] = walk[i];
+        }
+        return new Route(walk);
+    }
+
+    /**
+     * Plans the shortest round trip over all start locations.
+     *
+     * @return The route from the start location with the fewest roads, or null when there are no locations.
+     */
+    public Route bestRoute() {
+        if (n == 0) {
+            return null;
+        }
+        int[] cost = minRoadsPerStart();
+        int best = 0;
+        for (int v = 1; v < n; v++) {
+            if (cost[v] < cost[best]) {
+                best = v;
+            }
+        }
+        return route(best);
+    }
+
+    /**
+     * Runs the core analysis on first use.
+     */
+    private Analysis analyze() {
+        if (analysis != null) {
+            return analysis;
+        }
+
+        // Breadth-first order from location 0 gives parents before children
+        int[] order = new int[n];
+        int[] parent = new int[n];
+        boolean[] seen = new boolean[n];
+        int size = 0;
+        order[size++] = 0;
+        seen[0] = true;
+        parent[0] = -1;
+        for (int i = 0; i < size; i++) {
+            int v = order[i];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (!seen[u]) {
+                    seen[u] = true;
+                    parent[u] = v;
+                    order[size++] = u;
+                }
+            }
+        }
+        if (size != n) {
+            throw new IllegalArgumentException("The roads do not connect all " + n + " locations");
+        }
+
+        // down[v]: farthest package inside the subtree of v, children before parents
+        int[] down = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            int v = order[i];
+            int best = hasPackage[v] ? 0 : NONE;
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (u != parent[v]) {
+                    best = Math.max(best, down[u] + 1);
+                }
+            }
+            down[v] = best;
+        }
+
+        // up[v]: farthest package outside the subtree of v, parents before children (rerooting)
+        int[] up = new int[n];
+        up[0] = NONE;
+        int coreRoads = 0;
+        boolean[] coreRoad = new boolean[n];
+        boolean[] inCore = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int v = order[i];
+            int own = Math.max(hasPackage[v] ? 0 : NONE, up[v]); // Packages at v or above it
+            int first = NONE, second = NONE; // Two farthest packages through different children
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (u != parent[v]) {
+                    int d = down[u] + 1;
+                    if (d > first) {
+                        second = first;
+                        first = d;
+                    } else if (d > second) {
+                        second = d;
+                    }
+                }
+            }
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (u != parent[v]) {
+                    int outside = Math.max(own, down[u] + 1 == first ? second : first); // Seen from v, without u's subtree
+                    up[u] = outside + 1;
+                    if (down[u] >= radius && outside >= radius) { // Both sides need the road v-u
+                        coreRoads++;
+                        coreRoad[u] = true;
+                        inCore[u] = inCore[v] = true;
+                    }
+                }
+            }
+        }
+
+        // Without core roads a single location sees every package; otherwise the walk has to reach the core
+        int[] queue = new int[n];
+        int[] distance = new int[n];
+        int[] toward = new int[n];
+        Arrays.fill(distance, -1);
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            boolean target = coreRoads > 0 ? inCore[v] : Math.max(down[v], up[v]) <= radius;
+            if (target) {
+                distance[v] = 0;
+                toward[v] = -1;
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) { // Multi-source BFS
+            int v = queue[head];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = neighbors[j];
+                if (distance[u] < 0) {
+                    distance[u] = distance[v] + 1;
+                    toward[u] = v;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        analysis = new Analysis(parent, coreRoad, coreRoads, distance, toward);
+        return analysis;
+    }
+}
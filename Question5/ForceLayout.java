@@ -0,0 +1,358 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * ForceLayout arranges the nodes of a network with a force-directed (Fruchterman-Reingold) algorithm.
+ * Connected nodes attract each other and all nodes repel each other; the repulsion is approximated with
+ * a Barnes-Hut quadtree, so one iteration costs O(n log n) instead of O(n^2). The forces of an iteration
+ * are computed in parallel. The layout works on a snapshot of the graph and reports positions through a
+ * listener at a capped frame rate, so it can run off the Swing event thread.
+ */
+class ForceLayout {
+
+    /** Ideal edge length in world pixels */
+    private static final double EDGE_LENGTH = 80;
+
+    /** Barnes-Hut opening angle: a cell is approximated when size / distance is below this */
+    private static final double THETA = 0.8;
+
+    /** Pull towards the center of the layout, keeps disconnected parts from drifting apart */
+    private static final double GRAVITY = 0.02;
+
+    /** Temperature (maximum move per iteration) is multiplied by this after every iteration */
+    private static final double COOLING = 0.99;
+
+    /** The layout stops when the temperature falls below this many world pixels */
+    private static final double MIN_TEMPERATURE = 0.5;
+
+    /** Upper bound on the number of iterations */
+    private static final int MAX_ITERATIONS = 1000;
+
+    /** Quadtree depth limit, deeper cells keep several nodes (only happens for near-identical positions) */
+    private static final int MAX_DEPTH = 40;
+
+    /** Minimum time between two position updates, about 30 frames per second */
+    private static final long FRAME_NANOS = 1_000_000_000L / 30;
+
+    /**
+     * Receives positions while the layout runs.
+     */
+    interface Listener {
+        /**
+         * Called at most once per frame with the current positions, and once at the end.
+         * @param xs Horizontal positions by node id, a fresh array the listener may keep
+         * @param ys Vertical positions by node id, a fresh array the listener may keep
+         */
+        void positions(int[] xs, int[] ys);
+    }
+
+    private final TopologyGraph graph; // Snapshot of the network
+    private final int n;
+    private final double[] x, y; // Current positions
+    private final double[] dx, dy; // Displacement of the current iteration
+
+    // Flattened quadtree, cell 0 is the root. Cells are reused between iterations.
+    private int cells;
+    private double[] cellX = new double[64], cellY = new double[64], cellHalf = new double[64]; // Square bounds
+    private double[] mass = new double[64], sumX = new double[64], sumY = new double[64]; // Position sums, then centers of mass
+    private int[] children = new int[4 * 64]; // Child cell per quadrant, -1 if absent
+    private int[] body = new int[64]; // Node of a leaf with a single node, -1 otherwise
+    private boolean[] internal = new boolean[64];
+    private double[] openLimit = new double[64]; // Squared distance beyond which a cell counts as one body
+
+    /** Per-thread traversal stack, a cell pushes at most 4 children and the tree is at most MAX_DEPTH deep */
+    private static final ThreadLocal<int[]> STACK = ThreadLocal.withInitial(() -> new int[4 * (MAX_DEPTH + 2)]);
+
+    /**
+     * Constructor taking a snapshot of the network.
+     * Nodes sharing a position (e.g. all added at the default point) are first moved next to an already
+     * placed neighbor, in breadth-first order, so the layout starts without long crossing edges.
+     * @param graph Snapshot of the network, not modified while the layout runs
+     */
+    ForceLayout(TopologyGraph graph) {
+        this.graph = graph;
+        this.n = graph.nodeCount();
+        x = new double[n];
+        y = new double[n];
+        dx = new double[n];
+        dy = new double[n];
+        placeDuplicates();
+    }
+
+    /**
+     * Gives every node whose position is already taken by another node a new position next to a placed
+     * neighbor. Components without any placed node start at a random point around the layout.
+     */
+    private void placeDuplicates() {
+        Set<Long> taken = new HashSet<>();
+        boolean[] placed = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int v = 0; v < n; v++) {
+            x[v] = graph.x(v);
+            y[v] = graph.y(v);
+            if (taken.add(((long) graph.x(v) << 32) | (graph.y(v) & 0xffffffffL))) {
+                placed[v] = true;
+                queue[tail++] = v; // Nodes with their own position seed the search
+            }
+        }
+        int[] offsets = graph.adjacencyOffsets();
+        int[] neighbors = graph.adjacentNodes();
+        SplittableRandom random = new SplittableRandom(n);
+        double spread = EDGE_LENGTH * Math.sqrt(n) / 2;
+        int next = 0; // Scan position for components that have no placed node yet
+        while (tail < n || head < tail) {
+            if (head == tail) {
+                while (placed[next]) {
+                    next++;
+                }
+                x[next] = graph.x(next) + random.nextDouble(-spread, spread);
+                y[next] = graph.y(next) + random.nextDouble(-spread, spread);
+                placed[next] = true;
+                queue[tail++] = next;
+            }
+            int v = queue[head++];
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = neighbors[i];
+                if (!placed[u]) { // One edge length away from the neighbor in a random direction
+                    double angle = random.nextDouble(2 * Math.PI);
+                    x[u] = x[v] + EDGE_LENGTH * Math.cos(angle);
+                    y[u] = y[v] + EDGE_LENGTH * Math.sin(angle);
+                    placed[u] = true;
+                    queue[tail++] = u;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs iterations until the layout has cooled down or the run is cancelled.
+     * @param listener Receives the positions at a capped frame rate and after the last iteration
+     * @param cancelled Polled after every iteration, the run stops when it returns true
+     * @return The number of iterations performed
+     */
+    int run(Listener listener, BooleanSupplier cancelled) {
+        if (n == 0) {
+            return 0;
+        }
+        double temperature = initialTemperature();
+        long lastFrame = System.nanoTime();
+        int iterations = 0;
+        while (iterations < MAX_ITERATIONS && temperature > MIN_TEMPERATURE && !cancelled.getAsBoolean()) {
+            step(temperature);
+            temperature *= COOLING;
+            iterations++;
+            if (System.nanoTime() - lastFrame >= FRAME_NANOS) {
+                publish(listener);
+                lastFrame = System.nanoTime();
+            }
+        }
+        publish(listener); // Final positions, also after a cancel
+        return iterations;
+    }
+
+    /**
+     * Starts with moves of about a tenth of the layout's extent, so a scattered layout can still untangle.
+     */
+    private double initialTemperature() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int v = 0; v < n; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+        return Math.max(EDGE_LENGTH, Math.max(maxX - minX, maxY - minY) / 10);
+    }
+
+    private void publish(Listener listener) {
+        int[] xs = new int[n], ys = new int[n];
+        for (int v = 0; v < n; v++) {
+            xs[v] = (int) Math.round(x[v]);
+            ys[v] = (int) Math.round(y[v]);
+        }
+        listener.positions(xs, ys);
+    }
+
+    /**
+     * Performs one iteration: builds the quadtree, computes all forces in parallel and moves every node
+     * by at most the temperature.
+     */
+    private void step(double temperature) {
+        buildQuadtree();
+        double centerX = sumX[0], centerY = sumY[0]; // Center of mass of the whole layout
+        int[] offsets = graph.adjacencyOffsets();
+        int[] neighbors = graph.adjacentNodes();
+        IntStream.range(0, n).parallel().forEach(v -> { // Each task only writes its own node's displacement
+            repulsion(v); // Repulsion from all other nodes through the quadtree
+            double fx = dx[v], fy = dy[v];
+
+            // Attraction along the node's edges
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = neighbors[i];
+                double ex = x[u] - x[v], ey = y[u] - y[v];
+                double distance = Math.sqrt(ex * ex + ey * ey);
+                fx += ex * distance / EDGE_LENGTH;
+                fy += ey * distance / EDGE_LENGTH;
+            }
+
+            // Gravity towards the center
+            fx += (centerX - x[v]) * GRAVITY;
+            fy += (centerY - y[v]) * GRAVITY;
+            dx[v] = fx;
+            dy[v] = fy;
+        });
+        IntStream.range(0, n).parallel().forEach(v -> {
+            double length = Math.sqrt(dx[v] * dx[v] + dy[v] * dy[v]);
+            if (length > 0) {
+                double move = Math.min(length, temperature) / length; // Limit the move to the temperature
+                x[v] += dx[v] * move;
+                y[v] += dy[v] * move;
+            }
+        });
+    }
+
+    /**
+     * Stores the repulsive force on a node in its displacement, using a Barnes-Hut traversal of the quadtree.
+     */
+    private void repulsion(int v) {
+        double k2 = EDGE_LENGTH * EDGE_LENGTH;
+        double fx = 0, fy = 0;
+        int[] stack = STACK.get();
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            if (body[cell] == v) {
+                continue; // The node itself
+            }
+            double ex = x[v] - sumX[cell], ey = y[v] - sumY[cell];
+            double d2 = ex * ex + ey * ey;
+            if (!internal[cell] || openLimit[cell] < d2) { // Leaf, or far enough to treat as one body
+                if (d2 < 1e-6) {
+                    // Identical positions: push apart in a direction fixed by the node id
+                    ex = Math.cos(v);
+                    ey = Math.sin(v);
+                    d2 = 1;
+                }
+                double scale = k2 * mass[cell] / d2; // k^2 / d, times the unit vector (ex, ey) / d
+                fx += ex * scale;
+                fy += ey * scale;
+            } else {
+                for (int q = 0; q < 4; q++) {
+                    int child = children[4 * cell + q];
+                    if (child >= 0) {
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        dx[v] = fx;
+        dy[v] = fy;
+    }
+
+    /**
+     * Rebuilds the quadtree over the current positions.
+     * Mass and position sums are accumulated on the way down, so no separate upward pass is needed; a final
+     * pass turns the sums into centers of mass.
+     */
+    private void buildQuadtree() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int v = 0; v < n; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+        cells = 0;
+        newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1);
+        for (int v = 0; v < n; v++) {
+            insert(v);
+        }
+        for (int cell = 0; cell < cells; cell++) { // Turn the sums into centers of mass
+            sumX[cell] /= mass[cell];
+            sumY[cell] /= mass[cell];
+            double size = 2 * cellHalf[cell];
+            openLimit[cell] = size * size / (THETA * THETA);
+        }
+    }
+
+    private void insert(int v) {
+        int cell = 0;
+        for (int depth = 0; ; depth++) {
+            mass[cell]++;
+            sumX[cell] += x[v];
+            sumY[cell] += y[v];
+            if (!internal[cell]) {
+                if (mass[cell] == 1) {
+                    body[cell] = v; // Empty leaf takes the node
+                    return;
+                }
+                if (depth >= MAX_DEPTH) {
+                    body[cell] = -1; // Crowded leaf, kept as one aggregate body
+                    return;
+                }
+                // Split the leaf: move its node one level down, then continue with v
+                int old = body[cell];
+                body[cell] = -1;
+                internal[cell] = true;
+                int child = child(cell, quadrant(cell, old));
+                mass[child] = 1;
+                sumX[child] = x[old];
+                sumY[child] = y[old];
+                body[child] = old;
+            }
+            cell = child(cell, quadrant(cell, v));
+        }
+    }
+
+    private int quadrant(int cell, int v) {
+        return (x[v] >= cellX[cell] ? 1 : 0) | (y[v] >= cellY[cell] ? 2 : 0);
+    }
+
+    /**
+     * Returns the child of a cell in a quadrant, creating it if needed.
+     */
+    private int child(int cell, int q) {
+        int child = children[4 * cell + q];
+        if (child < 0) {
+            double half = cellHalf[cell] / 2;
+            child = newCell(cellX[cell] + ((q & 1) != 0 ? half : -half), cellY[cell] + ((q & 2) != 0 ? half : -half), half);
+            children[4 * cell + q] = child;
+        }
+        return child;
+    }
+
+    private int newCell(double cx, double cy, double half) {
+        if (cells == mass.length) {
+            int capacity = cells * 2; // Grow all cell arrays together
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            cellHalf = Arrays.copyOf(cellHalf, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            sumX = Arrays.copyOf(sumX, capacity);
+            sumY = Arrays.copyOf(sumY, capacity);
+            children = Arrays.copyOf(children, 4 * capacity);
+            body = Arrays.copyOf(body, capacity);
+            internal = Arrays.copyOf(internal, capacity);
+            openLimit = Arrays.copyOf(openLimit, capacity);
+        }
+        int cell = cells++;
+        cellX[cell] = cx;
+        cellY[cell] = cy;
+        cellHalf[cell] = half;
+        mass[cell] = 0;
+        sumX[cell] = 0;
+        sumY[cell] = 0;
+        Arrays.fill(children, 4 * cell, 4 * cell + 4, -1);
+        body[cell] = -1;
+        internal[cell] = false;
+        return cell;
+    }
+}
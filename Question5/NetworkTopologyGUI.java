@@ -1,8 +1,15 @@
 package Question5;
 
 import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 
 /**
@@ -11,21 +18,75 @@ import javax.swing.*;
  */
 public class NetworkTopologyGUI extends JFrame {
     
-    /** Stores the nodes in the network */
-    private final Map<String, Node> nodes;
-    
-    /** Stores the edges connecting the nodes */
-    private final List<Edge> edges;
+    /** Stores the nodes and the edges connecting them */
+    private final TopologyGraph graph;
     
     /** Canvas panel for drawing nodes and edges */
-    private final JPanel canvas;
+    private final CanvasPanel canvas;
+
+    /** Ids of the edges of the minimum-cost backbone found by the last optimization */
+    private final BitSet backboneEdges = new BitSet();
+
+    /** Ids of the edges on the widest paths found by the last optimization */
+    private final BitSet widestPathEdges = new BitSet();
+
+    /** Ids of the edges on the paths found by the last path query */
+    private final BitSet queryPathEdges = new BitSet();
+
+    /** Ids of the bridge edges found by the last resilience analysis */
+    private final BitSet bridgeEdges = new BitSet();
+
+    /** Ids of the articulation point nodes found by the last resilience analysis */
+    private final BitSet articulationNodes = new BitSet();
+
+    /** Answers and caches path queries on the live graph */
+    private final PathQueryEngine pathQueries;
+
+    /** Background executor running the optimizations off the event dispatch thread */
+    private final ExecutorService optimizerExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "topology-optimizer");
+        thread.setDaemon(true); // Do not keep the application alive
+        return thread;
+    });
+
+    /** Button that starts or cancels an optimization */
+    private final JButton optimizeButton;
+
+    /** The optimization currently running, or null */
+    private SwingWorker<TopologyOptimizer.Summary, Object> optimization;
+
+    /** Background executor reading and writing topology files */
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "topology-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Button that starts or cancels an import */
+    private final JButton importButton;
+
+    /** The import currently running, or null */
+    private SwingWorker<?, ?> importTask;
+
+    /** Background executor running the automatic layout; the forces themselves are computed in parallel */
+    private final ExecutorService layoutExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "topology-layout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Button that starts or stops the automatic layout */
+    private final JButton layoutButton;
+
+    /** The layout currently running, or null */
+    private SwingWorker<Integer, int[][]> layoutTask;
 
     /**
      * Constructor initializes the GUI, sets up the layout, and creates control buttons.
      */
     public NetworkTopologyGUI() {
-        nodes = new HashMap<>(); // Initialize the node storage
-        edges = new ArrayList<>(); // Initialize the edge storage
+        graph = new TopologyGraph(); // Initialize the node and edge storage
+        pathQueries = new PathQueryEngine(graph);
         canvas = new CanvasPanel(); // Create the drawing panel
 
         // Set up the frame properties
@@ -37,7 +98,7 @@ public class NetworkTopologyGUI extends JFrame {
 
         // Create a control panel for buttons
         JPanel controlPanel = new JPanel();
-        controlPanel.setLayout(new GridLayout(1, 3)); // Arrange buttons in a row
+        controlPanel.setLayout(new GridLayout(2, 4)); // Arrange buttons in two rows
 
         // Button to add a new node
         JButton addNodeButton = new JButton("Add Node");
@@ -50,10 +111,34 @@ public class NetworkTopologyGUI extends JFrame {
         controlPanel.add(addEdgeButton);
 
         // Button to optimize the network
-        JButton optimizeButton = new JButton("Optimize Network");
+        optimizeButton = new JButton("Optimize Network");
         optimizeButton.addActionListener(e -> optimizeNetwork());
         controlPanel.add(optimizeButton);
 
+        // Button to query paths between two nodes
+        JButton findPathsButton = new JButton("Find Paths");
+        findPathsButton.addActionListener(e -> findPaths());
+        controlPanel.add(findPathsButton);
+
+        // Button to find single points of failure
+        JButton resilienceButton = new JButton("Find Weak Points");
+        resilienceButton.addActionListener(e -> analyzeResilience());
+        controlPanel.add(resilienceButton);
+
+        // Button to arrange the nodes automatically
+        layoutButton = new JButton("Auto Layout");
+        layoutButton.addActionListener(e -> autoLayout());
+        controlPanel.add(layoutButton);
+
+        // Buttons to load and save whole topologies
+        importButton = new JButton("Import");
+        importButton.addActionListener(e -> importTopology());
+        controlPanel.add(importButton);
+
+        JButton exportButton = new JButton("Export");
+        exportButton.addActionListener(e -> exportTopology());
+        controlPanel.add(exportButton);
+
         add(controlPanel, BorderLayout.SOUTH); // Add control panel to the bottom
     }
 
@@ -64,8 +149,7 @@ public class NetworkTopologyGUI extends JFrame {
     private void addNode() {
         String nodeName = JOptionPane.showInputDialog(this, "Enter Node Name:"); // Get user input
         if (nodeName != null && !nodeName.trim().isEmpty()) { // Validate input
-            Node newNode = new Node(nodeName, new Point(100, 100)); // Create new node
-            nodes.put(nodeName, newNode); // Store node in the map
+            graph.addNode(nodeName, 100, 100); // Store node with a default position
             canvas.repaint(); // Refresh the canvas
         }
     }
@@ -78,100 +162,827 @@ public class NetworkTopologyGUI extends JFrame {
         String nodeA = JOptionPane.showInputDialog(this, "Enter the first node:"); // Get first node
         String nodeB = JOptionPane.showInputDialog(this, "Enter the second node:"); // Get second node
         if (nodeA != null && nodeB != null && !nodeA.trim().isEmpty() && !nodeB.trim().isEmpty()) { // Validate input
+            int a = graph.nodeId(nodeA); // Resolve names to ids once
+            int b = graph.nodeId(nodeB);
+            if (a < 0 || b < 0) {
+                JOptionPane.showMessageDialog(this, "Unknown node: " + (a < 0 ? nodeA : nodeB), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             int cost = Integer.parseInt(JOptionPane.showInputDialog(this, "Enter the cost of this connection:")); // Get cost
             int bandwidth = Integer.parseInt(JOptionPane.showInputDialog(this, "Enter the bandwidth of this connection:")); // Get bandwidth
-            Edge newEdge = new Edge(nodeA, nodeB, cost, bandwidth); // Create edge
-            edges.add(newEdge); // Store edge in the list
+            graph.addEdge(a, b, cost, bandwidth); // Store edge in the graph
             canvas.repaint(); // Refresh the canvas
         }
     }
 
     /**
-     * Optimizes the network topology using minimum spanning tree (MST) algorithms.
-     * Currently, this is a placeholder implementation.
+     * Optimizes the network topology, or cancels the optimization that is running.
+     * Computes the minimum-cost spanning backbone and the widest paths between the node pairs
+     * entered by the user on a background thread, highlighting results as they arrive.
      */
     private void optimizeNetwork() {
-        JOptionPane.showMessageDialog(this, "Network optimization algorithms applied!", "Optimization Complete", JOptionPane.INFORMATION_MESSAGE);
+        if (optimization != null) { // Second click cancels
+            optimization.cancel(true);
+            return;
+        }
+        String input = JOptionPane.showInputDialog(this,
+                "Node pairs for widest paths (e.g. A-B, C-D), or leave empty:"); // Get node pairs
+        if (input == null) {
+            return; // Dialog closed
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (String token : input.split(",")) {
+            String[] pair = token.trim().split("-");
+            if (pair.length == 2) {
+                int a = graph.nodeId(pair[0].trim());
+                int b = graph.nodeId(pair[1].trim());
+                if (a >= 0 && b >= 0) { // Skip pairs with unknown nodes
+                    pairs.add(new int[]{a, b});
+                }
+            }
+        }
+
+        // Snapshot the model on the event thread, the worker never touches the live graph
+        TopologyGraph snapshot = graph.snapshot();
+        TopologyOptimizer optimizer = new TopologyOptimizer(snapshot, pairs.toArray(new int[0][]));
+        backboneEdges.clear();
+        widestPathEdges.clear();
+        optimizeButton.setText("Cancel Optimization");
+
+        optimization = new SwingWorker<TopologyOptimizer.Summary, Object>() {
+            private final List<TopologyOptimizer.WidestPath> paths = new ArrayList<>();
+
+            @Override
+            protected TopologyOptimizer.Summary doInBackground() {
+                return optimizer.run(new TopologyOptimizer.Listener() {
+                    @Override
+                    public void backboneEdges(int[] chunk) {
+                        publish(chunk); // Delivered to process() on the event thread
+                    }
+
+                    @Override
+                    public void widestPath(TopologyOptimizer.WidestPath path) {
+                        publish(path);
+                    }
+                }, this::isCancelled);
+            }
+
+            @Override
+            protected void process(List<Object> results) {
+                for (Object result : results) {
+                    if (result instanceof TopologyOptimizer.WidestPath) {
+                        TopologyOptimizer.WidestPath path = (TopologyOptimizer.WidestPath) result;
+                        paths.add(path);
+                        for (int edge : path.edges) {
+                            widestPathEdges.set(edge);
+                        }
+                    } else {
+                        for (int edge : (int[]) result) {
+                            backboneEdges.set(edge);
+                        }
+                    }
+                }
+                canvas.repaint(); // Show partial results
+            }
+
+            @Override
+            protected void done() {
+                optimization = null;
+                optimizeButton.setText("Optimize Network");
+                canvas.repaint();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    TopologyOptimizer.Summary summary = get();
+                    StringBuilder message = new StringBuilder();
+                    message.append("Backbone: ").append(summary.backboneEdges).append(" edges, total cost ")
+                            .append(summary.backboneCost).append(" (").append(summary.components).append(" component(s))");
+                    for (TopologyOptimizer.WidestPath path : paths) {
+                        message.append("\nWidest path ").append(snapshot.name(path.source)).append(" -> ").append(snapshot.name(path.target)).append(": ")
+                                .append(path.bandwidth < 0 ? "not connected" : "bandwidth " + path.bandwidth);
+                    }
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, message.toString(), "Optimization Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Optimization failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        optimizerExecutor.execute(optimization); // Run on the background executor
+    }
+
+    /**
+     * Finds the widest path or the k cheapest paths with a minimum bandwidth between two nodes.
+     * Cached answers are shown immediately; other queries are searched on a snapshot in the background.
+     */
+    private void findPaths() {
+        String input = JOptionPane.showInputDialog(this, "Path between (e.g. A-B):"); // Get node pair
+        if (input == null) {
+            return; // Dialog closed
+        }
+        String[] pair = input.trim().split("-");
+        if (pair.length != 2) {
+            JOptionPane.showMessageDialog(this, "Enter two node names separated by '-'", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int a = graph.nodeId(pair[0].trim()); // Resolve names to ids once
+        int b = graph.nodeId(pair[1].trim());
+        if (a < 0 || b < 0) {
+            JOptionPane.showMessageDialog(this, "Unknown node: " + (a < 0 ? pair[0].trim() : pair[1].trim()), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String[] kinds = {"Widest Path", "Cheapest Paths"};
+        int kind = JOptionPane.showOptionDialog(this, "Which paths?", "Find Paths", JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE, null, kinds, kinds[0]);
+        PathQueryEngine.Query query;
+        if (kind == 0) {
+            query = PathQueryEngine.Query.widest(a, b);
+        } else if (kind == 1) {
+            String k = JOptionPane.showInputDialog(this, "Number of paths:", "3"); // Get k
+            String minBandwidth = JOptionPane.showInputDialog(this, "Minimum bandwidth:", "0"); // Get bandwidth limit
+            if (k == null || minBandwidth == null) {
+                return;
+            }
+            try {
+                query = PathQueryEngine.Query.cheapest(a, b, Integer.parseInt(k.trim()), Integer.parseInt(minBandwidth.trim()));
+            } catch (IllegalArgumentException e) { // Also covers NumberFormatException
+                JOptionPane.showMessageDialog(this, "Invalid number: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        } else {
+            return; // Dialog closed
+        }
+
+        List<PathQueryEngine.Path> cached = pathQueries.lookup(query);
+        if (cached != null) {
+            showPaths(query, cached, true);
+            return;
+        }
+        TopologyGraph snapshot = graph.snapshot(); // The search never touches the live graph
+        int generation = pathQueries.generation();
+        optimizerExecutor.execute(new SwingWorker<List<PathQueryEngine.Path>, Void>() {
+            @Override
+            protected List<PathQueryEngine.Path> doInBackground() {
+                return PathQueryEngine.search(snapshot, query, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<PathQueryEngine.Path> paths = get();
+                    pathQueries.store(query, paths, snapshot.edgeCount(), generation);
+                    if (generation == pathQueries.generation()) { // Not answered for a replaced network
+                        showPaths(query, paths, false);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Path query failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Highlights the paths of a query result and lists them in a dialog.
+     */
+    private void showPaths(PathQueryEngine.Query query, List<PathQueryEngine.Path> paths, boolean cached) {
+        queryPathEdges.clear();
+        StringBuilder message = new StringBuilder();
+        if (paths.isEmpty()) {
+            message.append(graph.name(query.source)).append(" and ").append(graph.name(query.target)).append(" are not connected")
+                    .append(query.isWidest() ? "" : " by edges with bandwidth " + query.minBandwidth + " or more");
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            PathQueryEngine.Path path = paths.get(i);
+            if (i > 0) {
+                message.append('\n');
+            }
+            message.append(query.isWidest() ? "Widest path" : "Path " + (i + 1)).append(": bandwidth ").append(path.bandwidth)
+                    .append(", cost ").append(path.cost).append(", ").append(path.edges.length).append(" hop(s): ")
+                    .append(graph.name(query.source));
+            int node = query.source;
+            for (int j = 0; j < path.edges.length; j++) {
+                queryPathEdges.set(path.edges[j]);
+                node = graph.opposite(path.edges[j], node); // Edge ids stay valid, edges are only appended
+                if (j < 10 || j == path.edges.length - 1) { // Long paths are shortened in the listing
+                    message.append(" -> ").append(graph.name(node));
+                } else if (j == 10) {
+                    message.append(" -> ...");
+                }
+            }
+        }
+        canvas.repaint();
+        JOptionPane.showMessageDialog(this, message.toString(), cached ? "Paths (cached)" : "Paths", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Finds the bridges, articulation points and 2-edge-connected components of the network on a
+     * background thread, then highlights the single points of failure in red.
+     */
+    private void analyzeResilience() {
+        TopologyGraph snapshot = graph.snapshot(); // The analysis never touches the live graph
+        int generation = pathQueries.generation(); // Changes when the network is replaced
+        optimizerExecutor.execute(new SwingWorker<ResilienceAnalyzer.Result, Void>() {
+            @Override
+            protected ResilienceAnalyzer.Result doInBackground() {
+                return new ResilienceAnalyzer(snapshot).run(this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != pathQueries.generation()) {
+                    return; // Ids refer to a network that was replaced meanwhile
+                }
+                try {
+                    ResilienceAnalyzer.Result result = get();
+                    bridgeEdges.clear();
+                    bridgeEdges.or(result.bridges);
+                    articulationNodes.clear();
+                    articulationNodes.or(result.articulationPoints);
+                    canvas.repaint();
+
+                    int[] sizes = new int[result.components];
+                    int largest = 0;
+                    for (int c : result.component) {
+                        largest = Math.max(largest, ++sizes[c]);
+                    }
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Bridges (single link failures that split the network): "
+                            + result.bridges.cardinality() + "\nArticulation points (single device failures that split it): "
+                            + result.articulationPoints.cardinality() + "\n2-edge-connected components: " + result.components
+                            + " (largest has " + largest + " of " + snapshot.nodeCount() + " nodes)",
+                            "Resilience Analysis", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Analysis failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Arranges the nodes with a force-directed layout, or stops the layout that is running.
+     * The layout runs on a snapshot in the background; the canvas is updated with the intermediate
+     * positions at most about 30 times per second and the view is fitted when the layout has settled.
+     */
+    private void autoLayout() {
+        if (layoutTask != null) { // Second click stops, the current positions are kept
+            layoutTask.cancel(true);
+            return;
+        }
+        ForceLayout layout = new ForceLayout(graph.snapshot());
+        layoutButton.setText("Stop Layout");
+        layoutTask = new SwingWorker<Integer, int[][]>() {
+            @Override
+            protected Integer doInBackground() {
+                return layout.run((xs, ys) -> publish(new int[][]{xs, ys}), this::isCancelled);
+            }
+
+            @Override
+            protected void process(List<int[][]> frames) {
+                if (isCancelled()) {
+                    return; // Frames queued after a cancel may belong to a replaced network
+                }
+                int[][] latest = frames.get(frames.size() - 1); // Older frames are already stale
+                graph.setPositions(latest[0], latest[1]);
+                canvas.repaint();
+            }
+
+            @Override
+            protected void done() {
+                layoutTask = null;
+                layoutButton.setText("Auto Layout");
+                if (!isCancelled()) {
+                    canvas.fitToView(); // Show the finished layout
+                }
+            }
+        };
+        layoutExecutor.execute(layoutTask); // Run on the background executor
+    }
+
+    /**
+     * Imports a topology file, or cancels the import that is running.
+     * CSV and edge-list files are parsed on a background thread and added to the current network in
+     * batches on the event thread, so the canvas stays responsive and fills in while the file is read.
+     * A binary snapshot (.topo) replaces the current network once it is loaded.
+     */
+    private void importTopology() {
+        if (importTask != null) { // Second click cancels, records added so far are kept
+            importTask.cancel(true);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        importButton.setText("Cancel Import");
+        if (TopologyIO.isSnapshot(file)) {
+            importTask = new SwingWorker<TopologyGraph, Void>() {
+                @Override
+                protected TopologyGraph doInBackground() throws IOException {
+                    return TopologyIO.readSnapshot(file); // Mapped and decoded off the event thread
+                }
+
+                @Override
+                protected void done() {
+                    importTask = null;
+                    importButton.setText("Import");
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        TopologyGraph loaded = get();
+                        if (optimization != null) {
+                            optimization.cancel(true); // Its edge ids refer to the old network
+                        }
+                        if (layoutTask != null) {
+                            layoutTask.cancel(true); // Its node ids refer to the old network
+                        }
+                        backboneEdges.clear();
+                        widestPathEdges.clear();
+                        queryPathEdges.clear();
+                        bridgeEdges.clear();
+                        articulationNodes.clear();
+                        graph.replaceWith(loaded); // Swaps the arrays, no copying on the event thread
+                        pathQueries.clear(); // Cached paths refer to the old network
+                        canvas.fitToView();
+                    } catch (InterruptedException | ExecutionException e) {
+                        showImportError(e);
+                    }
+                }
+            };
+        } else {
+            importTask = new SwingWorker<TopologyIO.ImportStats, TopologyIO.Batch>() {
+                @Override
+                protected TopologyIO.ImportStats doInBackground() throws IOException {
+                    return TopologyIO.readText(file, batch -> publish(batch), this::isCancelled);
+                }
+
+                @Override
+                protected void process(List<TopologyIO.Batch> batches) {
+                    for (TopologyIO.Batch batch : batches) {
+                        batch.applyTo(graph); // Ids are assigned on the event thread, which owns the graph
+                    }
+                    canvas.repaint(); // Show the records loaded so far
+                }
+
+                @Override
+                protected void done() {
+                    importTask = null;
+                    importButton.setText("Import");
+                    if (isCancelled()) {
+                        canvas.repaint();
+                        return;
+                    }
+                    try {
+                        TopologyIO.ImportStats stats = get();
+                        canvas.fitToView();
+                        JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Imported " + stats.lines + " line(s): "
+                                + graph.nodeCount() + " nodes, " + graph.edgeCount() + " edges in the network"
+                                + (stats.skipped > 0 ? "\n" + stats.skipped + " malformed line(s) skipped" : ""),
+                                "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (InterruptedException | ExecutionException e) {
+                        showImportError(e);
+                    }
+                }
+            };
+        }
+        ioExecutor.execute(importTask); // Run on the background executor
+    }
+
+    private void showImportError(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        JOptionPane.showMessageDialog(this, "Import failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Exports the network to a file: a binary snapshot for the .topo extension, CSV otherwise.
+     * The graph is snapshotted on the event thread and written in the background.
+     */
+    private void exportTopology() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        TopologyGraph snapshot = graph.snapshot();
+        ioExecutor.execute(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                if (TopologyIO.isSnapshot(file)) {
+                    TopologyIO.writeSnapshot(snapshot, file);
+                } else {
+                    TopologyIO.writeCsv(snapshot, file);
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(NetworkTopologyGUI.this, "Export failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }); // Queued behind any running import
     }
 
     /**
      * CanvasPanel is a custom JPanel used to draw network nodes and edges.
+     * Only elements inside the visible viewport are drawn. Dragging empty space pans, dragging a node
+     * moves it, the mouse wheel zooms and a double click fits the whole topology. Labels are hidden below
+     * a zoom threshold and, when zoomed far out, edges are aggregated per pair of screen cells.
      */
     class CanvasPanel extends JPanel {
+        /** Zoom level below which node and edge labels are hidden */
+        private static final double LABEL_ZOOM = 0.6;
+
+        /** Zoom level below which edges are aggregated and nodes drawn as dots */
+        private static final double AGGREGATE_ZOOM = 0.25;
+
+        /** Edge labels are skipped when more edges than this are visible */
+        private static final int MAX_EDGE_LABELS = 2000;
+
+        /** Screen cell size in pixels used to aggregate dense edges */
+        private static final int AGGREGATE_CELL = 8;
+
+        /** Node radius in world pixels */
+        private static final int NODE_RADIUS = 15;
+
+        /** Pixels the aggregated edge lines may plot per frame at far zoom, about one screen */
+        private static final int MAX_OVERVIEW_PIXELS = 1_000_000;
+
+        /** Pixel colors of the far-zoom layer (ARGB) */
+        private static final int OVERVIEW_EDGE_RGB = 0xFF999999, OVERVIEW_NODE_RGB = 0xFF0000FF, OVERVIEW_WEAK_NODE_RGB = 0xFFFF0000;
+
+        private final SpatialGrid grid = new SpatialGrid(); // Index of node positions
+        private double scale = 1.0; // Screen pixels per world pixel
+        private double offsetX, offsetY; // Screen position of the world origin
+        private Point dragStart; // Last mouse position while dragging
+        private int draggedNode = -1; // Node being moved, or -1 while panning
+        private long[] aggregateKeys = new long[2048]; // Open-addressing set of drawn cell pairs, two cell keys per slot
+        private static final long EMPTY_KEY = Long.MIN_VALUE; // Marks free slots, no real cell packs to it
+        private long[] neighbourPairs = new long[0]; // Bit per on-screen cell and direction: drawn pairs of touching cells
+        private BufferedImage overview; // Reused pixel buffer of the far-zoom layer
+
+        CanvasPanel() {
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragStart = e.getPoint();
+                    grid.update(graph);
+                    draggedNode = grid.nearest(worldX(e.getX()), worldY(e.getY()), NODE_RADIUS, graph); // Hit test through the grid
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (draggedNode >= 0) { // Move the node under the cursor
+                        graph.setPosition(draggedNode, worldX(e.getX()), worldY(e.getY()));
+                    } else { // Pan the view
+                        offsetX += e.getX() - dragStart.x;
+                        offsetY += e.getY() - dragStart.y;
+                    }
+                    dragStart = e.getPoint();
+                    repaint();
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    draggedNode = -1;
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        fitToView(); // Double click shows the whole topology
+                    }
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    double factor = Math.pow(1.1, -e.getPreciseWheelRotation()); // Zoom around the cursor
+                    double newScale = Math.max(0.001, Math.min(20, scale * factor));
+                    offsetX = e.getX() - (e.getX() - offsetX) * newScale / scale;
+                    offsetY = e.getY() - (e.getY() - offsetY) * newScale / scale;
+                    scale = newScale;
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        /**
+         * Zooms and pans so that every node is visible.
+         */
+        void fitToView() {
+            int n = graph.nodeCount();
+            if (n == 0 || getWidth() == 0) {
+                return;
+            }
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int v = 0; v < n; v++) {
+                minX = Math.min(minX, graph.x(v));
+                minY = Math.min(minY, graph.y(v));
+                maxX = Math.max(maxX, graph.x(v));
+                maxY = Math.max(maxY, graph.y(v));
+            }
+            int margin = 2 * NODE_RADIUS;
+            scale = Math.min(20, Math.min((double) getWidth() / (maxX - minX + 2 * margin),
+                    (double) getHeight() / (maxY - minY + 2 * margin)));
+            offsetX = -(minX - margin) * scale;
+            offsetY = -(minY - margin) * scale;
+            repaint();
+        }
+
+        private int screenX(int worldX) {
+            return (int) (worldX * scale + offsetX);
+        }
+
+        private int screenY(int worldY) {
+            return (int) (worldY * scale + offsetY);
+        }
+
+        private int worldX(int screenX) {
+            return (int) Math.floor((screenX - offsetX) / scale);
+        }
+
+        private int worldY(int screenY) {
+            return (int) Math.floor((screenY - offsetY) / scale);
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g); // Clear the panel
-            drawNodes(g); // Draw nodes
-            drawEdges(g); // Draw edges
+            grid.update(graph); // Re-index only if nodes were added or moved
+
+            // Visible world rectangle, widened by a node radius so partly visible nodes are drawn
+            int x0 = worldX(0) - NODE_RADIUS, y0 = worldY(0) - NODE_RADIUS;
+            int x1 = worldX(getWidth()) + NODE_RADIUS, y1 = worldY(getHeight()) + NODE_RADIUS;
+            if (scale < AGGREGATE_ZOOM) {
+                drawOverview(g, x0, y0, x1, y1); // Far zoom: aggregated edges and dots
+            } else {
+                drawEdges(g, x0, y0, x1, y1); // Draw edges below the nodes
+                drawNodes(g, x0, y0, x1, y1); // Draw nodes
+            }
+            drawHighlightedEdges(g, x0, y0, x1, y1); // Optimization results stay visible at every zoom level
         }
 
         /**
-         * Draws the nodes on the canvas.
+         * Draws the nodes inside the viewport, found through the spatial grid.
          * @param g Graphics object for rendering
          */
-        private void drawNodes(Graphics g) {
-            for (Node node : nodes.values()) {
-                g.setColor(Color.BLUE); // Set node color
-                g.fillOval(node.position.x - 15, node.position.y - 15, 30, 30); // Draw node circle
-                g.setColor(Color.WHITE); // Set text color
-                g.drawString(node.name, node.position.x - 10, node.position.y + 5); // Draw node name
-            }
+        private void drawNodes(Graphics g, int x0, int y0, int x1, int y1) {
+            boolean labels = scale >= LABEL_ZOOM;
+            int radius = Math.max(1, (int) Math.round(NODE_RADIUS * scale));
+            grid.forEachInRect(x0, y0, x1, y1, node -> {
+                int x = screenX(graph.x(node)), y = screenY(graph.y(node));
+                g.setColor(articulationNodes.get(node) ? Color.RED : Color.BLUE); // Set node color, weak points in red
+                g.fillOval(x - radius, y - radius, 2 * radius, 2 * radius); // Draw node circle
+                if (labels) {
+                    g.setColor(Color.WHITE); // Set text color
+                    g.drawString(graph.name(node), x - 10, y + 5); // Draw node name
+                }
+            });
         }
 
         /**
-         * Draws edges between nodes on the canvas.
+         * Returns true if an edge's bounding box intersects the world rectangle.
+         */
+        private boolean edgeVisible(int edge, int x0, int y0, int x1, int y1) {
+            return SpatialGrid.intersects(edge, x0, y0, x1, y1, graph);
+        }
+
+        /**
+         * Draws the plain edges whose bounding box intersects the viewport, found through the spatial grid.
+         * Endpoint positions are read straight from the graph arrays by node id.
          * @param g Graphics object for rendering
          */
-        private void drawEdges(Graphics g) {
-            for (Edge edge : edges) {
-                Node nodeA = nodes.get(edge.nodeA); // Get first node
-                Node nodeB = nodes.get(edge.nodeB); // Get second node
+        private void drawEdges(Graphics g, int x0, int y0, int x1, int y1) {
+            boolean labels = scale >= LABEL_ZOOM && countVisibleEdges(x0, y0, x1, y1, MAX_EDGE_LABELS + 1) <= MAX_EDGE_LABELS;
+            grid.forEachEdgeInRect(x0, y0, x1, y1, graph, edge -> {
+                if (widestPathEdges.get(edge) || backboneEdges.get(edge) || queryPathEdges.get(edge) || bridgeEdges.get(edge)) {
+                    return true; // Drawn on top as a highlight
+                }
+                int a = graph.source(edge), b = graph.target(edge);
+                int sax = screenX(graph.x(a)), say = screenY(graph.y(a)), sbx = screenX(graph.x(b)), sby = screenY(graph.y(b));
                 g.setColor(Color.BLACK); // Set edge color
-                g.drawLine(nodeA.position.x, nodeA.position.y, nodeB.position.x, nodeB.position.y); // Draw edge line
-                g.setColor(Color.RED); // Set text color
-                g.drawString("Cost: " + edge.cost + " Bandwidth: " + edge.bandwidth, // Display edge properties
-                        (nodeA.position.x + nodeB.position.x) / 2, (nodeA.position.y + nodeB.position.y) / 2);
+                g.drawLine(sax, say, sbx, sby); // Draw edge line
+                if (labels) {
+                    g.setColor(Color.RED); // Set text color
+                    g.drawString("Cost: " + graph.cost(edge) + " Bandwidth: " + graph.bandwidth(edge), // Display edge properties
+                            (sax + sbx) / 2, (say + sby) / 2);
+                }
+                return true;
+            });
+        }
+
+        /**
+         * Draws the bridge, backbone, widest-path and queried path edges with a thick stroke.
+         * @param g Graphics object for rendering
+         */
+        private void drawHighlightedEdges(Graphics g, int x0, int y0, int x1, int y1) {
+            Graphics2D g2d = (Graphics2D) g;
+            Stroke thin = g2d.getStroke();
+            g2d.setStroke(new BasicStroke(scale < AGGREGATE_ZOOM ? 2f : 3f));
+            g2d.setColor(new Color(0, 160, 0)); // Backbone edges
+            for (int edge = backboneEdges.nextSetBit(0); edge >= 0; edge = backboneEdges.nextSetBit(edge + 1)) {
+                if (!widestPathEdges.get(edge) && edge < graph.edgeCount() && edgeVisible(edge, x0, y0, x1, y1)) {
+                    drawEdgeLine(g2d, edge);
+                }
             }
+            g2d.setColor(Color.RED); // Bridges over the backbone, which always contains them
+            for (int edge = bridgeEdges.nextSetBit(0); edge >= 0; edge = bridgeEdges.nextSetBit(edge + 1)) {
+                if (edge < graph.edgeCount() && edgeVisible(edge, x0, y0, x1, y1)) {
+                    drawEdgeLine(g2d, edge);
+                }
+            }
+            g2d.setColor(Color.ORANGE); // Widest path edges on top
+            for (int edge = widestPathEdges.nextSetBit(0); edge >= 0; edge = widestPathEdges.nextSetBit(edge + 1)) {
+                if (edge < graph.edgeCount() && edgeVisible(edge, x0, y0, x1, y1)) {
+                    drawEdgeLine(g2d, edge);
+                }
+            }
+            g2d.setColor(Color.MAGENTA); // Paths of the last query on top
+            for (int edge = queryPathEdges.nextSetBit(0); edge >= 0; edge = queryPathEdges.nextSetBit(edge + 1)) {
+                if (edge < graph.edgeCount() && edgeVisible(edge, x0, y0, x1, y1)) {
+                    drawEdgeLine(g2d, edge);
+                }
+            }
+            g2d.setStroke(thin);
         }
-    }
 
-    /**
-     * Represents a node (device) in the network.
-     */
-    static class Node {
-        String name; // Node name
-        Point position; // Node position on canvas
+        private void drawEdgeLine(Graphics g, int edge) {
+            int a = graph.source(edge), b = graph.target(edge);
+            g.drawLine(screenX(graph.x(a)), screenY(graph.y(a)), screenX(graph.x(b)), screenY(graph.y(b)));
+        }
 
         /**
-         * Constructor for creating a new node.
-         * @param name Node name
-         * @param position Node position
+         * Draws the far-zoom level of detail straight into an opaque pixel buffer.
+         * Edge ends snap to screen cells and each pair of cells is drawn once, up to a pixel budget that
+         * short edges, taken first from the spatial grid, rarely reach; the long edges after them are cut
+         * in id order. Nodes become single dots, so the cost no longer grows with the number of drawn primitives.
+         * @param g Graphics object for rendering
          */
-        Node(String name, Point position) {
-            this.name = name;
-            this.position = position;
+        private void drawOverview(Graphics g, int x0, int y0, int x1, int y1) {
+            int width = getWidth(), height = getHeight();
+            if (overview == null || overview.getWidth() != width || overview.getHeight() != height) {
+                overview = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            int[] pixels = ((DataBufferInt) overview.getRaster().getDataBuffer()).getData();
+            Arrays.fill(pixels, getBackground().getRGB()); // Opaque, so the blit is a plain copy
+            Arrays.fill(aggregateKeys, EMPTY_KEY);
+            int cellColumns = width / AGGREGATE_CELL + 1, cellRows = height / AGGREGATE_CELL + 1;
+            if (neighbourPairs.length < (cellColumns * cellRows * 4 + 63) / 64) {
+                neighbourPairs = new long[(cellColumns * cellRows * 4 + 63) / 64];
+            }
+            Arrays.fill(neighbourPairs, 0);
+
+            int[] lines = {0};
+            int[] budget = {MAX_OVERVIEW_PIXELS};
+            int half = AGGREGATE_CELL / 2;
+            grid.forEachEdgeInRect(x0, y0, x1, y1, graph, edge -> {
+                int a = graph.source(edge), b = graph.target(edge);
+                long ca = cellKey(screenX(graph.x(a)), screenY(graph.y(a)));
+                long cb = cellKey(screenX(graph.x(b)), screenY(graph.y(b)));
+                if (ca == cb) {
+                    return true; // Inside one cell
+                }
+                int column = (int) (ca >> 32), row = (int) ca, otherColumn = (int) (cb >> 32), otherRow = (int) cb;
+                if (otherColumn < column || otherColumn == column && otherRow < row) { // Start at the left cell, or the upper one
+                    int swap = column; column = otherColumn; otherColumn = swap;
+                    swap = row; row = otherRow; otherRow = swap;
+                }
+                int dx = otherColumn - column, dy = otherRow - row;
+                if (dx <= 1 && Math.abs(dy) <= 1 && column >= 0 && column < cellColumns && row >= 0 && row < cellRows) {
+                    int bit = (row * cellColumns + column) * 4 + (dx == 0 ? 0 : dy + 2); // The other cell is (0,1), (1,-1), (1,0) or (1,1) away
+                    if ((neighbourPairs[bit >> 6] & 1L << bit) != 0) {
+                        return true; // This cell pair is already drawn
+                    }
+                    neighbourPairs[bit >> 6] |= 1L << bit;
+                } else if (!addAggregatePair(Math.min(ca, cb), Math.max(ca, cb))) {
+                    return true; // This cell pair is already drawn
+                } else if (++lines[0] * 2 > aggregateKeys.length / 2) {
+                    growAggregateKeys();
+                }
+                budget[0] -= plotLine(pixels, width, height,
+                        snap(screenX(graph.x(a))) + half, snap(screenY(graph.y(a))) + half,
+                        snap(screenX(graph.x(b))) + half, snap(screenY(graph.y(b))) + half, OVERVIEW_EDGE_RGB);
+                return budget[0] > 0;
+            });
+
+            grid.forEachInRect(x0, y0, x1, y1, node -> {
+                int x = screenX(graph.x(node)), y = screenY(graph.y(node));
+                for (int dy = 0; dy < 2; dy++) { // 2x2 dot
+                    for (int dx = 0; dx < 2; dx++) {
+                        int px = x + dx, py = y + dy;
+                        if (px >= 0 && px < width && py >= 0 && py < height) {
+                            pixels[py * width + px] = articulationNodes.get(node) ? OVERVIEW_WEAK_NODE_RGB : OVERVIEW_NODE_RGB;
+                        }
+                    }
+                }
+            });
+            g.drawImage(overview, 0, 0, null); // One blit for the whole layer
         }
-    }
 
-    /**
-     * Represents an edge (connection) between two nodes.
-     */
-    static class Edge {
-        String nodeA, nodeB; // Connected nodes
-        int cost, bandwidth; // Connection properties
+        /**
+         * Plots a one-pixel line with Bresenham's algorithm, skipping pixels outside the buffer.
+         * The line is first clipped to the buffer so off-screen parts cost nothing.
+         * @return The number of pixels plotted
+         */
+        private int plotLine(int[] pixels, int width, int height, int xa, int ya, int xb, int yb, int rgb) {
+            // Liang-Barsky clipping against the buffer rectangle
+            double t0 = 0, t1 = 1;
+            int dx = xb - xa, dy = yb - ya;
+            int[] p = {-dx, dx, -dy, dy};
+            int[] q = {xa, width - 1 - xa, ya, height - 1 - ya};
+            for (int i = 0; i < 4; i++) {
+                if (p[i] == 0) {
+                    if (q[i] < 0) return 0; // Parallel and outside
+                } else {
+                    double t = (double) q[i] / p[i];
+                    if (p[i] < 0) t0 = Math.max(t0, t); else t1 = Math.min(t1, t);
+                }
+            }
+            if (t0 > t1) return 0;
+            int x = (int) Math.round(xa + t0 * dx), y = (int) Math.round(ya + t0 * dy);
+            int xEnd = (int) Math.round(xa + t1 * dx), yEnd = (int) Math.round(ya + t1 * dy);
+
+            int sx = x < xEnd ? 1 : -1, sy = y < yEnd ? 1 : -1;
+            int ex = Math.abs(xEnd - x), ey = -Math.abs(yEnd - y);
+            int error = ex + ey;
+            int plotted = 0;
+            while (true) {
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    pixels[y * width + x] = rgb;
+                    plotted++;
+                }
+                if (x == xEnd && y == yEnd) return plotted;
+                int e2 = 2 * error;
+                if (e2 >= ey) { error += ey; x += sx; }
+                if (e2 <= ex) { error += ex; y += sy; }
+            }
+        }
+
+        /**
+         * Counts visible edges, stopping early once the limit is reached.
+         */
+        private int countVisibleEdges(int x0, int y0, int x1, int y1, int limit) {
+            int[] count = {0};
+            grid.forEachEdgeInRect(x0, y0, x1, y1, graph, edge -> ++count[0] < limit);
+            return count[0];
+        }
+
+        private int snap(int screen) {
+            return Math.floorDiv(screen, AGGREGATE_CELL) * AGGREGATE_CELL;
+        }
 
         /**
-         * Constructor for creating a new edge.
-         * @param nodeA First node name
-         * @param nodeB Second node name
-         * @param cost Connection cost
-         * @param bandwidth Connection bandwidth
+         * Packs the screen cell of a position: column in the high half, row in the low half, so negative
+         * cells off-screen stay distinct.
          */
-        Edge(String nodeA, String nodeB, int cost, int bandwidth) {
-            this.nodeA = nodeA;
-            this.nodeB = nodeB;
-            this.cost = cost;
-            this.bandwidth = bandwidth;
+        private long cellKey(int sx, int sy) {
+            return (long) Math.floorDiv(sx, AGGREGATE_CELL) << 32 | (Math.floorDiv(sy, AGGREGATE_CELL) & 0xffffffffL);
+        }
+
+        /**
+         * Adds a cell pair to the aggregation set.
+         * @return true if the pair was not drawn yet in this frame
+         */
+        private boolean addAggregatePair(long first, long second) {
+            int mask = aggregateKeys.length / 2 - 1;
+            int slot = (int) (mix(first ^ mix(second)) & mask);
+            while (aggregateKeys[2 * slot] != EMPTY_KEY) {
+                if (aggregateKeys[2 * slot] == first && aggregateKeys[2 * slot + 1] == second) {
+                    return false;
+                }
+                slot = (slot + 1) & mask; // Linear probing
+            }
+            aggregateKeys[2 * slot] = first;
+            aggregateKeys[2 * slot + 1] = second;
+            return true;
+        }
+
+        private void growAggregateKeys() {
+            long[] old = aggregateKeys;
+            aggregateKeys = new long[old.length * 2];
+            Arrays.fill(aggregateKeys, EMPTY_KEY);
+            int mask = aggregateKeys.length / 2 - 1;
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i] != EMPTY_KEY) {
+                    int slot = (int) (mix(old[i] ^ mix(old[i + 1])) & mask);
+                    while (aggregateKeys[2 * slot] != EMPTY_KEY) slot = (slot + 1) & mask;
+                    aggregateKeys[2 * slot] = old[i];
+                    aggregateKeys[2 * slot + 1] = old[i + 1];
+                }
+            }
+        }
+
+        private long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads neighbouring cells
+            return key ^ (key >>> 29);
         }
     }
 
@@ -0,0 +1,570 @@
+package Question5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * PathQueryEngine answers path queries over the topology and caches their results.
+ * Two kinds of queries are supported:
+ * <ul>
+ *   <li>widest path: the path between two nodes whose smallest edge bandwidth is as large as possible</li>
+ *   <li>k cheapest paths: up to k loopless paths of lowest total cost that only use edges with at least a
+ *       minimum bandwidth (Yen's algorithm)</li>
+ * </ul>
+ * Both are Dijkstra variants over the CSR adjacency with a primitive indexed heap. Searches run on a graph
+ * snapshot and may run off the event thread; the cache belongs to the live graph and is used on the event
+ * thread. When edges are added, only the cached results the new edges can actually change are dropped.
+ */
+class PathQueryEngine {
+
+    /** Maximum number of cached query results, least recently used ones are evicted */
+    private static final int MAX_ENTRIES = 256;
+
+    /**
+     * A path query.
+     */
+    static class Query {
+        final int source, target; // Node ids
+        final int k; // Number of cheapest paths, or 0 for a widest-path query
+        final int minBandwidth; // Smallest edge bandwidth allowed on the cheapest paths
+
+        private Query(int source, int target, int k, int minBandwidth) {
+            this.source = source;
+            this.target = target;
+            this.k = k;
+            this.minBandwidth = minBandwidth;
+        }
+
+        /**
+         * Creates a maximum-bandwidth path query.
+         */
+        static Query widest(int source, int target) {
+            return new Query(source, target, 0, 0);
+        }
+
+        /**
+         * Creates a k-cheapest-paths query.
+         * @param k Number of paths, at least 1
+         * @param minBandwidth Edges with a smaller bandwidth are not used
+         */
+        static Query cheapest(int source, int target, int k, int minBandwidth) {
+            if (k < 1) {
+                throw new IllegalArgumentException("k must be at least 1: " + k);
+            }
+            return new Query(source, target, k, minBandwidth);
+        }
+
+        boolean isWidest() {
+            return k == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Query)) return false;
+            Query q = (Query) o;
+            return source == q.source && target == q.target && k == q.k && minBandwidth == q.minBandwidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, target, k, minBandwidth);
+        }
+    }
+
+    /**
+     * A path found by a query. Paths are equal when they use the same edges in the same order.
+     */
+    static class Path {
+        final int[] edges; // Edge ids from source to target
+        final long cost; // Total cost
+        final int bandwidth; // Smallest bandwidth on the path (Integer.MAX_VALUE for an empty path)
+
+        Path(int[] edges, long cost, int bandwidth) {
+            this.edges = edges;
+            this.cost = cost;
+            this.bandwidth = bandwidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(edges, ((Path) o).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+
+    /** Cached results: the paths found, cheapest or widest first */
+    private final Map<Query, List<Path>> cache = new LinkedHashMap<Query, List<Path>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Query, List<Path>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final TopologyGraph graph; // The live graph
+    private int checkedEdges; // Edges below this id have already been checked against the cache
+    private int generation; // Incremented by clear(), results of older searches are not stored
+
+    /**
+     * Constructor for the cache of a live graph.
+     * @param graph The live graph, only read on the event thread
+     */
+    PathQueryEngine(TopologyGraph graph) {
+        this.graph = graph;
+        this.checkedEdges = graph.edgeCount();
+    }
+
+    /**
+     * Returns a cached result, after dropping the entries invalidated by edges added since the last call.
+     * @param query The query
+     * @return The cached paths, or null if the query has to be searched
+     */
+    List<Path> lookup(Query query) {
+        invalidate();
+        return cache.get(query);
+    }
+
+    /**
+     * @return The value to pass to store() for a search started now
+     */
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Caches the result of a search that ran on a snapshot.
+     * Edges added to the live graph after the snapshot are checked against the result right away.
+     * @param query The query
+     * @param paths The search result
+     * @param snapshotEdges Edge count of the snapshot the search ran on
+     * @param generation The generation() when the search started
+     */
+    void store(Query query, List<Path> paths, int snapshotEdges, int generation) {
+        if (generation != this.generation) {
+            return; // The graph was replaced while searching
+        }
+        invalidate();
+        for (int edge = snapshotEdges; edge < graph.edgeCount(); edge++) {
+            if (affects(query, paths, edge)) {
+                return; // Already stale
+            }
+        }
+        cache.put(query, Collections.unmodifiableList(paths));
+    }
+
+    /**
+     * Drops every cached result, e.g. after the whole graph was replaced.
+     */
+    void clear() {
+        cache.clear();
+        checkedEdges = graph.edgeCount();
+        generation++;
+    }
+
+    /**
+     * Removes the cached results that edges added since the last check could change.
+     */
+    private void invalidate() {
+        int edgeCount = graph.edgeCount();
+        if (checkedEdges == edgeCount) {
+            return;
+        }
+        for (Iterator<Map.Entry<Query, List<Path>>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Query, List<Path>> entry = it.next();
+            for (int edge = checkedEdges; edge < edgeCount; edge++) {
+                if (affects(entry.getKey(), entry.getValue(), edge)) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        checkedEdges = edgeCount;
+    }
+
+    /**
+     * Decides whether a new edge can change a query result.
+     * A new widest path must contain the edge, so its bottleneck is at most the edge's bandwidth. A new
+     * cheapest path must contain the edge too, so it costs at least the edge's cost (costs are not negative).
+     */
+    private boolean affects(Query query, List<Path> paths, int edge) {
+        if (query.isWidest()) {
+            return paths.isEmpty() || graph.bandwidth(edge) > paths.get(0).bandwidth;
+        }
+        return graph.bandwidth(edge) >= query.minBandwidth
+                && (paths.size() < query.k || graph.cost(edge) < paths.get(query.k - 1).cost);
+    }
+
+    /**
+     * Runs a query on a graph.
+     * @param graph The graph, typically a snapshot when called off the event thread
+     * @param query The query
+     * @param cancelled Polled between searches, the query stops when it returns true
+     * @return The paths found, cheapest or widest first; empty if the nodes are not connected; null if cancelled
+     * @throws IllegalArgumentException If a usable edge has a negative cost (cheapest-path queries only)
+     */
+    static List<Path> search(TopologyGraph graph, Query query, BooleanSupplier cancelled) {
+        Search search = new Search(graph);
+        if (query.isWidest()) {
+            Path path = search.widest(query.source, query.target);
+            return path == null ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(path));
+        }
+        return search.cheapest(query.source, query.target, query.k, query.minBandwidth, cancelled);
+    }
+
+    /**
+     * Scratch state of the searches on one graph. Per-node arrays are stamped instead of cleared, so the
+     * many spur searches of Yen's algorithm only pay for the nodes they reach.
+     */
+    private static class Search {
+        private final TopologyGraph graph;
+        private final int[] offsets, neighbors, neighborEdges; // CSR adjacency
+        private final long[] key; // Cost, or negated bottleneck, per reached node
+        private final int[] parentEdge; // Edge used to reach each node
+        private final int[] reached, done; // Stamps: node reached / settled in the current search
+        private final int[] bannedNode, bannedEdge; // Stamps: excluded from the current spur search
+        private long[] toTarget; // Cheapest cost to the target without bans, the A* potential of spur searches
+        private int[] towardTarget; // First edge of that cheapest path to the target, -1 at the target
+        private final LongHeap heap;
+        private int stamp, banStamp;
+
+        Search(TopologyGraph graph) {
+            this.graph = graph;
+            int n = graph.nodeCount();
+            offsets = graph.adjacencyOffsets();
+            neighbors = graph.adjacentNodes();
+            neighborEdges = graph.adjacentEdges();
+            key = new long[n];
+            parentEdge = new int[n];
+            reached = new int[n];
+            done = new int[n];
+            bannedNode = new int[n];
+            bannedEdge = new int[graph.edgeCount()];
+            heap = new LongHeap(n);
+        }
+
+        /**
+         * Maximum-bottleneck Dijkstra: settles nodes in order of decreasing best bottleneck.
+         * @return The widest path, or null if the nodes are not connected
+         */
+        Path widest(int source, int target) {
+            stamp++;
+            heap.clear();
+            reach(source, -Integer.MAX_VALUE, -1); // Keys are negated bottlenecks in the min-heap
+            while (!heap.isEmpty()) {
+                int node = heap.pop();
+                done[node] = stamp;
+                if (node == target) {
+                    return path(source, target);
+                }
+                long width = -key[node];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int next = neighbors[i], edge = neighborEdges[i];
+                    if (done[next] != stamp) {
+                        relax(next, -Math.min(width, graph.bandwidth(edge)), edge);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Yen's algorithm: every further path deviates from an earlier one at a spur node, so each round
+         * searches cheapest spur paths with the earlier deviations and the shared root banned.
+         * One reverse search from the target gives every node's exact unbanned cost to the target. Bans only
+         * make paths more expensive, so that cost is a consistent A* potential for the spur searches, and
+         * when the unbanned cheapest path from a spur node avoids all bans it is the spur path itself.
+         */
+        List<Path> cheapest(int source, int target, int k, int minBandwidth, BooleanSupplier cancelled) {
+            List<Path> found = new ArrayList<>();
+            costsToTarget(target, minBandwidth);
+            if (toTarget[source] == Long.MAX_VALUE) {
+                return found; // Not connected
+            }
+            banStamp++; // Nothing banned for the first search
+            found.add(cheapestSpur(source, target, minBandwidth));
+            PriorityQueue<Path> candidates = new PriorityQueue<>((a, b) -> a.cost != b.cost
+                    ? Long.compare(a.cost, b.cost) : Integer.compare(a.edges.length, b.edges.length));
+            Set<Path> known = new HashSet<>(found); // Found paths and queued candidates
+            while (found.size() < k) {
+                Path previous = found.get(found.size() - 1);
+                int[] nodes = nodes(source, previous.edges);
+                long rootCost = 0;
+                for (int i = 0; i < previous.edges.length; i++) {
+                    if (cancelled.getAsBoolean()) {
+                        return null;
+                    }
+                    banStamp++;
+                    for (Path path : found) { // Ban the next edge of every found path sharing this root
+                        if (path.edges.length > i && Arrays.equals(path.edges, 0, i, previous.edges, 0, i)) {
+                            bannedEdge[path.edges[i]] = banStamp;
+                        }
+                    }
+                    for (int j = 0; j < i; j++) {
+                        bannedNode[nodes[j]] = banStamp; // Keep the spur path off the root, no loops
+                    }
+                    Path spur = cheapestSpur(nodes[i], target, minBandwidth);
+                    if (spur != null) {
+                        int[] edges = Arrays.copyOf(previous.edges, i + spur.edges.length);
+                        System.arraycopy(spur.edges, 0, edges, i, spur.edges.length);
+                        Path candidate = new Path(edges, rootCost + spur.cost, Math.min(bottleneck(previous.edges, i), spur.bandwidth));
+                        if (known.add(candidate)) {
+                            candidates.add(candidate);
+                        }
+                    }
+                    rootCost += graph.cost(previous.edges[i]);
+                }
+                if (candidates.isEmpty()) {
+                    break; // No more loopless paths
+                }
+                found.add(candidates.poll());
+            }
+            return found;
+        }
+
+        /**
+         * Cost Dijkstra from the target over the edges with enough bandwidth, filling toTarget and towardTarget.
+         */
+        private void costsToTarget(int target, int minBandwidth) {
+            int n = graph.nodeCount();
+            toTarget = new long[n];
+            towardTarget = new int[n];
+            Arrays.fill(toTarget, Long.MAX_VALUE);
+            stamp++;
+            heap.clear();
+            reach(target, 0, -1);
+            while (!heap.isEmpty()) {
+                int node = heap.pop();
+                done[node] = stamp;
+                toTarget[node] = key[node];
+                towardTarget[node] = parentEdge[node];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int next = neighbors[i], edge = neighborEdges[i];
+                    if (done[next] == stamp || graph.bandwidth(edge) < minBandwidth) {
+                        continue;
+                    }
+                    if (graph.cost(edge) < 0) {
+                        throw new IllegalArgumentException("Edge " + graph.name(graph.source(edge)) + "-"
+                                + graph.name(graph.target(edge)) + " has a negative cost");
+                    }
+                    relax(next, key[node] + graph.cost(edge), edge);
+                }
+            }
+        }
+
+        /**
+         * Cheapest path over the edges with enough bandwidth that are not banned, as an A* search with the
+         * cost to the target as potential. Heap keys are cost so far plus potential.
+         * @return The cheapest path, or null if there is none
+         */
+        private Path cheapestSpur(int source, int target, int minBandwidth) {
+            Path direct = treePath(source, target);
+            if (direct != null) {
+                return direct; // The unbanned cheapest path is still allowed
+            }
+            stamp++;
+            heap.clear();
+            reach(source, toTarget[source], -1);
+            while (!heap.isEmpty()) {
+                int node = heap.pop();
+                done[node] = stamp;
+                if (node == target) {
+                    return path(source, target);
+                }
+                long cost = key[node] - toTarget[node];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int next = neighbors[i], edge = neighborEdges[i];
+                    if (done[next] == stamp || toTarget[next] == Long.MAX_VALUE || bannedNode[next] == banStamp
+                            || bannedEdge[edge] == banStamp || graph.bandwidth(edge) < minBandwidth) {
+                        continue; // Settled, cannot reach the target, banned or too narrow
+                    }
+                    relax(next, cost + graph.cost(edge) + toTarget[next], edge);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the unbanned cheapest path from a node to the target if it avoids the current bans.
+         */
+        private Path treePath(int source, int target) {
+            if (toTarget[source] == Long.MAX_VALUE || bannedNode[source] == banStamp) {
+                return null;
+            }
+            int length = 0;
+            for (int node = source; node != target; length++) {
+                int edge = towardTarget[node];
+                node = graph.opposite(edge, node);
+                if (bannedEdge[edge] == banStamp || bannedNode[node] == banStamp) {
+                    return null;
+                }
+            }
+            int[] edges = new int[length];
+            int bandwidth = Integer.MAX_VALUE;
+            for (int i = 0, node = source; node != target; i++) {
+                edges[i] = towardTarget[node];
+                bandwidth = Math.min(bandwidth, graph.bandwidth(edges[i]));
+                node = graph.opposite(edges[i], node);
+            }
+            return new Path(edges, toTarget[source], bandwidth);
+        }
+
+        private void reach(int node, long value, int edge) {
+            reached[node] = stamp;
+            key[node] = value;
+            parentEdge[node] = edge;
+            heap.push(node, value);
+        }
+
+        /**
+         * Lowers a node's key if the new value is smaller.
+         */
+        private void relax(int node, long value, int edge) {
+            if (reached[node] != stamp) {
+                reach(node, value, edge);
+            } else if (value < key[node]) {
+                key[node] = value;
+                parentEdge[node] = edge;
+                heap.decrease(node, value);
+            }
+        }
+
+        /**
+         * Follows the parent edges back from the target.
+         */
+        private Path path(int source, int target) {
+            int length = 0;
+            for (int node = target; node != source; node = graph.opposite(parentEdge[node], node)) {
+                length++;
+            }
+            int[] edges = new int[length];
+            long cost = 0;
+            int bandwidth = Integer.MAX_VALUE;
+            for (int node = target; node != source; node = graph.opposite(parentEdge[node], node)) {
+                int edge = parentEdge[node];
+                edges[--length] = edge; // Fill from the end so the path runs source -> target
+                cost += graph.cost(edge);
+                bandwidth = Math.min(bandwidth, graph.bandwidth(edge));
+            }
+            return new Path(edges, cost, bandwidth);
+        }
+
+        private int[] nodes(int source, int[] edges) {
+            int[] nodes = new int[edges.length + 1];
+            nodes[0] = source;
+            for (int i = 0; i < edges.length; i++) {
+                nodes[i + 1] = graph.opposite(edges[i], nodes[i]);
+            }
+            return nodes;
+        }
+
+        private int bottleneck(int[] edges, int length) {
+            int bandwidth = Integer.MAX_VALUE;
+            for (int i = 0; i < length; i++) {
+                bandwidth = Math.min(bandwidth, graph.bandwidth(edges[i]));
+            }
+            return bandwidth;
+        }
+    }
+
+    /**
+     * Indexed binary min-heap of node ids keyed by longs, with decrease-key and no boxing.
+     */
+    static class LongHeap {
+        private final int[] nodes; // Heap order
+        private final long[] keys; // Key of the node at each heap slot
+        private final int[] slot; // Heap slot of each node, valid while the node is in the heap
+        private int size;
+
+        LongHeap(int capacity) {
+            nodes = new int[capacity];
+            keys = new long[capacity];
+            slot = new int[capacity];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int node, long key) {
+            nodes[size] = node;
+            keys[size] = key;
+            slot[node] = size;
+            up(size++);
+        }
+
+        /**
+         * Lowers the key of a node that is in the heap.
+         */
+        void decrease(int node, long key) {
+            int i = slot[node];
+            keys[i] = key;
+            up(i);
+        }
+
+        /**
+         * Removes and returns the node with the smallest key.
+         */
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                down(0);
+            }
+            return top;
+        }
+
+        private void up(int i) {
+            int node = nodes[i];
+            long key = keys[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                move(parent, i);
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+            slot[node] = i;
+        }
+
+        private void down(int i) {
+            int node = nodes[i];
+            long key = keys[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                move(child, i);
+                i = child;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+            slot[node] = i;
+        }
+
+        private void move(int from, int to) {
+            nodes[to] = nodes[from];
+            keys[to] = keys[from];
+            slot[nodes[to]] = to;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package Question5;
+
+import java.util.BitSet;
+import java.util.function.BooleanSupplier;
+
+/**
+ * ResilienceAnalyzer finds the single points of failure of a network: bridges (links whose failure
+ * disconnects the network), articulation points (devices whose failure disconnects it) and the
+ * 2-edge-connected components (parts that stay connected after any single link failure).
+ * It runs one Tarjan depth-first search over the CSR adjacency in linear time. The search keeps its own
+ * explicit stack, so deep networks (long chains with millions of nodes) cannot overflow the thread stack.
+ */
+class ResilienceAnalyzer {
+
+    /**
+     * Result of the analysis.
+     */
+    static class Result {
+        final BitSet bridges; // Edge ids of the bridges
+        final BitSet articulationPoints; // Node ids of the articulation points
+        final int[] component; // 2-edge-connected component id of every node
+        final int components; // Number of 2-edge-connected components
+
+        Result(BitSet bridges, BitSet articulationPoints, int[] component, int components) {
+            this.bridges = bridges;
+            this.articulationPoints = articulationPoints;
+            this.component = component;
+            this.components = components;
+        }
+    }
+
+    private final TopologyGraph graph; // Snapshot of the network
+
+    /**
+     * Constructor taking a snapshot of the network.
+     * @param graph Snapshot of the network, not modified while the analysis runs
+     */
+    ResilienceAnalyzer(TopologyGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Runs the analysis.
+     * @param cancelled Polled regularly, the analysis stops when it returns true
+     * @return The result, or null if the analysis was cancelled
+     */
+    Result run(BooleanSupplier cancelled) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.adjacencyOffsets();
+        int[] neighbors = graph.adjacentNodes();
+        int[] neighborEdges = graph.adjacentEdges();
+
+        int[] discovery = new int[n]; // Discovery time starting at 1, 0 while unvisited
+        int[] low = new int[n]; // Lowest discovery time reachable through the subtree and one back edge
+        int[] parentEdge = new int[n]; // Tree edge into each node, -1 for roots
+        int[] cursor = new int[n]; // Next CSR slot to scan per node on the DFS stack
+        int[] callStack = new int[n]; // Nodes whose adjacency is being scanned
+        int[] pending = new int[n]; // Visited nodes not yet assigned to a 2-edge-connected component
+        int[] component = new int[n];
+        BitSet bridges = new BitSet(graph.edgeCount());
+        BitSet articulationPoints = new BitSet(n);
+        int time = 0, components = 0, pendingSize = 0;
+        long steps = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (discovery[root] != 0) {
+                continue;
+            }
+            int rootChildren = 0;
+            int depth = 0;
+            discovery[root] = low[root] = ++time;
+            parentEdge[root] = -1;
+            cursor[root] = offsets[root];
+            callStack[depth++] = root;
+            pending[pendingSize++] = root;
+
+            while (depth > 0) {
+                if ((++steps & 0xfffff) == 0 && cancelled.getAsBoolean()) {
+                    return null;
+                }
+                int node = callStack[depth - 1];
+                if (cursor[node] < offsets[node + 1]) {
+                    int slot = cursor[node]++;
+                    int next = neighbors[slot], edge = neighborEdges[slot];
+                    if (edge == parentEdge[node]) {
+                        continue; // Do not go back over the tree edge itself; parallel edges still count
+                    }
+                    if (discovery[next] == 0) { // Tree edge: descend
+                        discovery[next] = low[next] = ++time;
+                        parentEdge[next] = edge;
+                        cursor[next] = offsets[next];
+                        callStack[depth++] = next;
+                        pending[pendingSize++] = next;
+                        if (node == root) {
+                            rootChildren++;
+                        }
+                    } else { // Back edge
+                        low[node] = Math.min(low[node], discovery[next]);
+                    }
+                    continue;
+                }
+
+                // All neighbors scanned: return to the parent
+                depth--;
+                if (low[node] == discovery[node]) { // Nothing below reaches above node: close its component
+                    int member;
+                    do {
+                        member = pending[--pendingSize];
+                        component[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                    if (low[node] > discovery[parent]) {
+                        bridges.set(parentEdge[node]); // The subtree only hangs on this edge
+                    }
+                    if (parent != root && low[node] >= discovery[parent]) {
+                        articulationPoints.set(parent); // The subtree cannot reach above the parent
+                    }
+                }
+            }
+            if (rootChildren > 1) {
+                articulationPoints.set(root); // A root separates its DFS subtrees
+            }
+        }
+        return new Result(bridges, articulationPoints, component, components);
+    }
+}
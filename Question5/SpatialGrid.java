@@ -0,0 +1,203 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * SpatialGrid is a uniform grid index over node positions and edges.
+ * Nodes are bucketed by cell with a counting sort into flat arrays, so a rectangle query only
+ * visits the cells it overlaps. Edges form a loose grid in the same cells: an edge whose bounding box
+ * spans at most MAX_EDGE_SPAN cells each way is bucketed by the cell of its top-left corner, and a
+ * query widens the rectangle by that span up and to the left; longer edges are kept in one list that
+ * every query checks. The index is rebuilt in linear time when the graph changes.
+ */
+class SpatialGrid {
+
+    /** Smallest cell size in world pixels */
+    private static final int MIN_CELL_SIZE = 16;
+
+    /** Cells an edge's bounding box may span each way and still be bucketed by cell */
+    private static final int MAX_EDGE_SPAN = 4;
+
+    private int minX, minY; // World position of the grid origin
+    private int cellSize; // Cell edge length in world pixels
+    private int columns, rows; // Grid dimensions in cells
+    private int[] cellStart = new int[1]; // Nodes of cell c are cellNodes[cellStart[c] .. cellStart[c + 1])
+    private int[] cellNodes = new int[0];
+    private int[] edgeCellStart = new int[1]; // Short edges of cell c are cellEdges[edgeCellStart[c] .. edgeCellStart[c + 1])
+    private int[] cellEdges = new int[0];
+    private int[] longEdges = new int[0]; // Edges spanning more than MAX_EDGE_SPAN cells, by id
+    private long builtVersion = -1; // Graph version the grid was built for
+
+    /**
+     * Rebuilds the grid if the graph changed since the last build.
+     * @param graph The graph to index
+     */
+    void update(TopologyGraph graph) {
+        if (builtVersion == graph.version()) {
+            return;
+        }
+        int n = graph.nodeCount();
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        for (int v = 0; v < n; v++) { // Bounding box of all nodes
+            minX = Math.min(minX, graph.x(v));
+            minY = Math.min(minY, graph.y(v));
+            maxX = Math.max(maxX, graph.x(v));
+            maxY = Math.max(maxY, graph.y(v));
+        }
+        if (n == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Aim for about two nodes per cell on average
+        long area = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        cellSize = Math.max(MIN_CELL_SIZE, (int) Math.sqrt(2.0 * area / Math.max(n, 1)));
+        columns = (maxX - minX) / cellSize + 1;
+        rows = (maxY - minY) / cellSize + 1;
+
+        // Counting sort of the nodes by cell
+        cellStart = new int[columns * rows + 1];
+        int[] cellOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            cellOf[v] = cell(graph.x(v), graph.y(v));
+            cellStart[cellOf[v] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[n];
+        int[] fill = new int[columns * rows];
+        for (int v = 0; v < n; v++) {
+            int c = cellOf[v];
+            cellNodes[cellStart[c] + fill[c]++] = v;
+        }
+
+        // Counting sort of the short edges by the cell of their top-left corner
+        int m = graph.edgeCount();
+        edgeCellStart = new int[columns * rows + 1];
+        int[] edgeCellOf = new int[m];
+        long span = (long) MAX_EDGE_SPAN * cellSize;
+        int longCount = 0;
+        for (int e = 0; e < m; e++) {
+            int a = graph.source(e), b = graph.target(e);
+            int left = Math.min(graph.x(a), graph.x(b)), top = Math.min(graph.y(a), graph.y(b));
+            if (Math.max(graph.x(a), graph.x(b)) - (long) left > span || Math.max(graph.y(a), graph.y(b)) - (long) top > span) {
+                edgeCellOf[e] = -1;
+                longCount++;
+            } else {
+                edgeCellOf[e] = cell(left, top);
+                edgeCellStart[edgeCellOf[e] + 1]++;
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            edgeCellStart[c + 1] += edgeCellStart[c];
+        }
+        cellEdges = new int[m - longCount];
+        longEdges = new int[longCount];
+        Arrays.fill(fill, 0);
+        longCount = 0;
+        for (int e = 0; e < m; e++) {
+            int c = edgeCellOf[e];
+            if (c < 0) {
+                longEdges[longCount++] = e;
+            } else {
+                cellEdges[edgeCellStart[c] + fill[c]++] = e;
+            }
+        }
+        builtVersion = graph.version();
+    }
+
+    /**
+     * Returns the cell index of a world position inside the grid bounds.
+     */
+    private int cell(int x, int y) {
+        return ((y - minY) / cellSize) * columns + (x - minX) / cellSize;
+    }
+
+    /**
+     * Visits every node whose cell overlaps a world rectangle.
+     * Nodes near the rectangle's border may be reported even if they lie just outside it.
+     * @param x0 Left edge
+     * @param y0 Top edge
+     * @param x1 Right edge
+     * @param y1 Bottom edge
+     * @param action Called with each node id
+     */
+    void forEachInRect(int x0, int y0, int x1, int y1, IntConsumer action) {
+        int c0 = Math.max(0, (x0 - minX) / cellSize), c1 = Math.min(columns - 1, Math.floorDiv(x1 - minX, cellSize));
+        int r0 = Math.max(0, (y0 - minY) / cellSize), r1 = Math.min(rows - 1, Math.floorDiv(y1 - minY, cellSize));
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    action.accept(cellNodes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every edge whose bounding box intersects a world rectangle: first the short edges, cell by
+     * cell, then the long ones in id order.
+     * @param x0 Left edge
+     * @param y0 Top edge
+     * @param x1 Right edge
+     * @param y1 Bottom edge
+     * @param graph The indexed graph
+     * @param action Called with each edge id; returning false ends the query
+     */
+    void forEachEdgeInRect(int x0, int y0, int x1, int y1, TopologyGraph graph, IntPredicate action) {
+        long span = (long) MAX_EDGE_SPAN * cellSize; // Short edges starting this far up or left may still reach the rectangle
+        int c0 = (int) Math.max(0, Math.floorDiv(x0 - span - minX, cellSize)), c1 = Math.min(columns - 1, Math.floorDiv(x1 - minX, cellSize));
+        int r0 = (int) Math.max(0, Math.floorDiv(y0 - span - minY, cellSize)), r1 = Math.min(rows - 1, Math.floorDiv(y1 - minY, cellSize));
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int i = edgeCellStart[cell]; i < edgeCellStart[cell + 1]; i++) {
+                    if (intersects(cellEdges[i], x0, y0, x1, y1, graph) && !action.test(cellEdges[i])) {
+                        return;
+                    }
+                }
+            }
+        }
+        for (int edge : longEdges) {
+            if (intersects(edge, x0, y0, x1, y1, graph) && !action.test(edge)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if an edge's bounding box intersects a world rectangle.
+     */
+    static boolean intersects(int edge, int x0, int y0, int x1, int y1, TopologyGraph graph) {
+        int a = graph.source(edge), b = graph.target(edge);
+        int ax = graph.x(a), ay = graph.y(a), bx = graph.x(b), by = graph.y(b);
+        return Math.max(ax, bx) >= x0 && Math.min(ax, bx) <= x1 && Math.max(ay, by) >= y0 && Math.min(ay, by) <= y1;
+    }
+
+    /**
+     * Finds the node closest to a world position within a radius.
+     * @param x World x
+     * @param y World y
+     * @param radius Search radius in world pixels
+     * @param graph The indexed graph
+     * @return The closest node id, or -1 if none is within the radius
+     */
+    int nearest(int x, int y, int radius, TopologyGraph graph) {
+        int[] best = {-1};
+        long[] bestDistance = {(long) radius * radius};
+        forEachInRect(x - radius, y - radius, x + radius, y + radius, v -> {
+            long dx = graph.x(v) - x, dy = graph.y(v) - y;
+            long d = dx * dx + dy * dy;
+            if (d <= bestDistance[0]) {
+                bestDistance[0] = d;
+                best[0] = v;
+            }
+        });
+        return best[0];
+    }
+}
@@ -0,0 +1,312 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TopologyGraph is the compact graph core shared by the GUI and the optimization algorithms.
+ * Nodes are integer ids with positions in parallel arrays, edges are parallel endpoint, cost and
+ * bandwidth arrays, and adjacency is a compressed sparse row (CSR) index rebuilt lazily after changes.
+ * Node names are only hashed when a node is looked up by name, never while painting or searching.
+ */
+class TopologyGraph {
+
+    /** Initial capacity of the node and edge arrays */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names = new String[INITIAL_CAPACITY]; // Node id -> name
+    private Map<String, Integer> ids = new HashMap<>(); // Node name -> id
+    private int[] xs = new int[INITIAL_CAPACITY], ys = new int[INITIAL_CAPACITY]; // Node positions
+    private int nodeCount;
+
+    private int[] sources = new int[INITIAL_CAPACITY], targets = new int[INITIAL_CAPACITY]; // Edge endpoints
+    private int[] costs = new int[INITIAL_CAPACITY], bandwidths = new int[INITIAL_CAPACITY]; // Edge properties
+    private int edgeCount;
+
+    // CSR adjacency: the neighbors of node v are adjacentNodes[offsets[v] .. offsets[v + 1]),
+    // reached through edge adjacentEdges[i]. Each undirected edge appears once per endpoint.
+    private int[] offsets, adjacentNodes, adjacentEdges;
+    private boolean adjacencyValid;
+
+    /** Incremented on every change, lets derived indexes detect that they are stale */
+    private long version;
+
+    /**
+     * Adds a node, or moves it if a node with that name already exists.
+     * @param name Node name
+     * @param x Horizontal position
+     * @param y Vertical position
+     * @return The node id
+     */
+    int addNode(String name, int x, int y) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            setPosition(existing, x, y); // Same name replaces the node's position
+            return existing;
+        }
+        if (nodeCount == names.length) {
+            int capacity = names.length * 2; // Grow all node arrays together
+            names = Arrays.copyOf(names, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        int id = nodeCount++;
+        names[id] = name;
+        xs[id] = x;
+        ys[id] = y;
+        ids.put(name, id);
+        adjacencyValid = false;
+        version++;
+        return id;
+    }
+
+    /**
+     * Adds an undirected edge between two existing nodes.
+     * @param a First node id
+     * @param b Second node id
+     * @param cost Connection cost
+     * @param bandwidth Connection bandwidth
+     * @return The edge id
+     */
+    int addEdge(int a, int b, int cost, int bandwidth) {
+        if (a < 0 || a >= nodeCount || b < 0 || b >= nodeCount) {
+            throw new IllegalArgumentException("Unknown node id: " + (a < 0 || a >= nodeCount ? a : b));
+        }
+        if (edgeCount == sources.length) {
+            int capacity = sources.length * 2; // Grow all edge arrays together
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            bandwidths = Arrays.copyOf(bandwidths, capacity);
+        }
+        int id = edgeCount++;
+        sources[id] = a;
+        targets[id] = b;
+        costs[id] = cost;
+        bandwidths[id] = bandwidth;
+        adjacencyValid = false;
+        version++;
+        return id;
+    }
+
+    /**
+     * Looks up a node by name.
+     * @param name Node name
+     * @return The node id, or -1 if there is no such node
+     */
+    int nodeId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Creates an independent copy that background algorithms can read while the GUI keeps editing.
+     * Ids are the same as in this graph; resolve names to ids on the live graph before taking the snapshot.
+     * @return A snapshot of the current graph
+     */
+    TopologyGraph snapshot() {
+        TopologyGraph copy = new TopologyGraph();
+        copy.names = Arrays.copyOf(names, Math.max(nodeCount, 1));
+        copy.xs = Arrays.copyOf(xs, Math.max(nodeCount, 1));
+        copy.ys = Arrays.copyOf(ys, Math.max(nodeCount, 1));
+        copy.nodeCount = nodeCount;
+        copy.sources = Arrays.copyOf(sources, Math.max(edgeCount, 1));
+        copy.targets = Arrays.copyOf(targets, Math.max(edgeCount, 1));
+        copy.costs = Arrays.copyOf(costs, Math.max(edgeCount, 1));
+        copy.bandwidths = Arrays.copyOf(bandwidths, Math.max(edgeCount, 1));
+        copy.edgeCount = edgeCount;
+        return copy; // Name lookups are not needed off the event thread, so the name index is not copied
+    }
+
+    /**
+     * Creates a graph directly from its arrays, used by bulk loaders.
+     * The arrays are taken over without copying; the name index is built here so loaders can call this
+     * off the event thread.
+     * @param names Node names, one per node
+     * @param xs Horizontal node positions
+     * @param ys Vertical node positions
+     * @param sources First endpoint of every edge
+     * @param targets Second endpoint of every edge
+     * @param costs Edge costs
+     * @param bandwidths Edge bandwidths
+     * @return The new graph
+     */
+    static TopologyGraph of(String[] names, int[] xs, int[] ys, int[] sources, int[] targets, int[] costs, int[] bandwidths) {
+        int n = names.length, m = sources.length;
+        if (xs.length != n || ys.length != n || targets.length != m || costs.length != m || bandwidths.length != m) {
+            throw new IllegalArgumentException("Array lengths do not match");
+        }
+        TopologyGraph graph = new TopologyGraph();
+        graph.ids = new HashMap<>(Math.max(16, (int) (n / 0.75f) + 1)); // Presized, no rehashing
+        for (int e = 0; e < m; e++) {
+            if (sources[e] < 0 || sources[e] >= n || targets[e] < 0 || targets[e] >= n) {
+                throw new IllegalArgumentException("Edge " + e + " has an unknown endpoint");
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (graph.ids.put(names[v], v) != null) {
+                throw new IllegalArgumentException("Duplicate node name: " + names[v]);
+            }
+        }
+        // Keep at least one slot so the doubling growth in addNode/addEdge works
+        graph.names = n == 0 ? graph.names : names;
+        graph.xs = n == 0 ? graph.xs : xs;
+        graph.ys = n == 0 ? graph.ys : ys;
+        graph.nodeCount = n;
+        graph.sources = m == 0 ? graph.sources : sources;
+        graph.targets = m == 0 ? graph.targets : targets;
+        graph.costs = m == 0 ? graph.costs : costs;
+        graph.bandwidths = m == 0 ? graph.bandwidths : bandwidths;
+        graph.edgeCount = m;
+        return graph;
+    }
+
+    /**
+     * Replaces the whole content of this graph with another graph's, e.g. after loading a snapshot.
+     * The other graph must not be used afterwards. Node and edge ids of the old content become invalid.
+     * @param other The graph whose content is taken over
+     */
+    void replaceWith(TopologyGraph other) {
+        names = other.names;
+        ids = other.ids; // Swapped, not copied, so this stays cheap on the event thread
+        xs = other.xs;
+        ys = other.ys;
+        nodeCount = other.nodeCount;
+        sources = other.sources;
+        targets = other.targets;
+        costs = other.costs;
+        bandwidths = other.bandwidths;
+        edgeCount = other.edgeCount;
+        adjacencyValid = false;
+        version++;
+    }
+
+    /**
+     * Builds the CSR adjacency index if edges or nodes were added since the last build.
+     */
+    private void ensureAdjacency() {
+        if (adjacencyValid) {
+            return;
+        }
+        int[] start = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) { // Count the degree of every node
+            start[sources[e] + 1]++;
+            start[targets[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) { // Prefix sums give the row offsets
+            start[v + 1] += start[v];
+        }
+        int[] nodes = new int[2 * edgeCount];
+        int[] edges = new int[2 * edgeCount];
+        int[] fill = Arrays.copyOf(start, nodeCount); // Next free slot per node
+        for (int e = 0; e < edgeCount; e++) {
+            int a = sources[e], b = targets[e];
+            nodes[fill[a]] = b;
+            edges[fill[a]++] = e;
+            nodes[fill[b]] = a;
+            edges[fill[b]++] = e;
+        }
+        offsets = start;
+        adjacentNodes = nodes;
+        adjacentEdges = edges;
+        adjacencyValid = true;
+    }
+
+    /**
+     * Returns the CSR row offsets; the adjacency of node v spans offsets[v] to offsets[v + 1].
+     * @return The offsets array (nodeCount + 1 entries)
+     */
+    int[] adjacencyOffsets() {
+        ensureAdjacency();
+        return offsets;
+    }
+
+    /**
+     * Returns the neighbor node of every CSR slot.
+     * @return The neighbor array, indexed by the CSR offsets
+     */
+    int[] adjacentNodes() {
+        ensureAdjacency();
+        return adjacentNodes;
+    }
+
+    /**
+     * Returns the edge id of every CSR slot.
+     * @return The edge array, indexed by the CSR offsets
+     */
+    int[] adjacentEdges() {
+        ensureAdjacency();
+        return adjacentEdges;
+    }
+
+    void setPosition(int node, int x, int y) {
+        xs[node] = x;
+        ys[node] = y;
+        version++;
+    }
+
+    /**
+     * Moves many nodes at once, e.g. to apply a computed layout.
+     * Only the first min(xs.length, nodeCount) nodes are moved, so nodes added since the layout started keep
+     * their positions.
+     * @param xs Horizontal positions by node id
+     * @param ys Vertical positions by node id
+     */
+    void setPositions(int[] xs, int[] ys) {
+        int count = Math.min(Math.min(xs.length, ys.length), nodeCount);
+        System.arraycopy(xs, 0, this.xs, 0, count);
+        System.arraycopy(ys, 0, this.ys, 0, count);
+        version++;
+    }
+
+    long version() {
+        return version;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    String name(int node) {
+        return names[node];
+    }
+
+    int x(int node) {
+        return xs[node];
+    }
+
+    int y(int node) {
+        return ys[node];
+    }
+
+    int source(int edge) {
+        return sources[edge];
+    }
+
+    int target(int edge) {
+        return targets[edge];
+    }
+
+    int cost(int edge) {
+        return costs[edge];
+    }
+
+    int bandwidth(int edge) {
+        return bandwidths[edge];
+    }
+
+    /**
+     * Returns the endpoint of an edge opposite to the given node.
+     * @param edge Edge id
+     * @param node One endpoint of the edge
+     * @return The other endpoint
+     */
+    int opposite(int edge, int node) {
+        return sources[edge] == node ? targets[edge] : sources[edge];
+    }
+}
@@ -0,0 +1,431 @@
+package Question5;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * TopologyIO reads and writes network topologies in bulk.
+ * Text files are streamed line by line and handed over in batches, so a GUI can add them to the live
+ * graph on the event thread while parsing continues in the background. Supported text formats:
+ * <ul>
+ *   <li>CSV: {@code node,name,x,y} and {@code edge,nodeA,nodeB,cost,bandwidth} records; a field holding
+ *   commas, quotes, line breaks or surrounding spaces is enclosed in double quotes, with quotes doubled</li>
+ *   <li>Edge list: {@code nodeA nodeB [cost [bandwidth]]} separated by whitespace</li>
+ * </ul>
+ * Lines starting with '#' and blank lines are ignored. Nodes that are only mentioned by an edge are
+ * created automatically. The binary snapshot format stores the graph arrays as they are in memory and is
+ * loaded through a memory-mapped file.
+ */
+class TopologyIO {
+
+    /** Number of records handed over per batch */
+    static final int BATCH_SIZE = 8192;
+
+    /** Binary snapshot file header: "TOPO" */
+    private static final int MAGIC = 0x544F504F;
+
+    /** Binary snapshot format version */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Lines a quoted CSV field may span; a longer record is taken as an unclosed quote and skipped */
+    private static final int MAX_RECORD_LINES = 100;
+
+    /** Default cost and bandwidth of edge-list records that leave them out */
+    private static final int DEFAULT_COST = 1, DEFAULT_BANDWIDTH = 1;
+
+    /** Grid spacing and width used to position nodes that come without coordinates */
+    private static final int AUTO_SPACING = 60, AUTO_COLUMNS = 256;
+
+    /**
+     * A batch of parsed records, applied to a graph in one go.
+     * Edges refer to nodes by name because ids are only known once the batch is applied.
+     */
+    static class Batch {
+        final String[] nodeNames = new String[BATCH_SIZE];
+        final int[] nodeXs = new int[BATCH_SIZE], nodeYs = new int[BATCH_SIZE];
+        int nodes; // Number of node records
+
+        final String[] edgeSources = new String[BATCH_SIZE], edgeTargets = new String[BATCH_SIZE];
+        final int[] costs = new int[BATCH_SIZE], bandwidths = new int[BATCH_SIZE];
+        int edges; // Number of edge records
+
+        int lines; // Input lines consumed by this batch, including skipped ones
+        int skipped; // Malformed lines in this batch
+
+        boolean isFull() {
+            return nodes == BATCH_SIZE || edges == BATCH_SIZE;
+        }
+
+        /**
+         * Adds the batch to a graph. Node records come first, so edges can refer to nodes of the same batch.
+         * Must be called on the thread that owns the graph.
+         * @param graph The graph to extend
+         */
+        void applyTo(TopologyGraph graph) {
+            for (int i = 0; i < nodes; i++) {
+                graph.addNode(nodeNames[i], nodeXs[i], nodeYs[i]);
+            }
+            for (int i = 0; i < edges; i++) {
+                graph.addEdge(resolve(graph, edgeSources[i]), resolve(graph, edgeTargets[i]), costs[i], bandwidths[i]);
+            }
+        }
+
+        private static int resolve(TopologyGraph graph, String name) {
+            int id = graph.nodeId(name);
+            if (id >= 0) {
+                return id;
+            }
+            int next = graph.nodeCount(); // Unknown node: place it on the next free grid slot
+            return graph.addNode(name, (next % AUTO_COLUMNS) * AUTO_SPACING + AUTO_SPACING,
+                    (next / AUTO_COLUMNS) * AUTO_SPACING + AUTO_SPACING);
+        }
+    }
+
+    /**
+     * Result of a text import.
+     */
+    static class ImportStats {
+        final long lines; // Lines read
+        final long skipped; // Malformed lines that were ignored
+
+        ImportStats(long lines, long skipped) {
+            this.lines = lines;
+            this.skipped = skipped;
+        }
+    }
+
+    /**
+     * Returns true if the file name has the binary snapshot extension.
+     */
+    static boolean isSnapshot(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".topo");
+    }
+
+    /**
+     * Streams a CSV or edge-list file and hands the parsed records over in batches.
+     * The format is chosen from the extension: ".csv" is CSV, anything else is an edge list.
+     * @param file The file to read
+     * @param sink Receives every batch; the batch is not reused after it has been handed over
+     * @param cancelled Polled between batches, reading stops when it returns true
+     * @return Line counts, or null if reading was cancelled
+     * @throws IOException If the file cannot be read
+     */
+    static ImportStats readText(Path file, Consumer<Batch> sink, BooleanSupplier cancelled) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        long lines = 0, skipped = 0;
+        Batch batch = new Batch();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.lines++;
+                String trimmed = line.trim();
+                for (int more = 1; csv && more < MAX_RECORD_LINES && !trimmed.startsWith("#") && openQuote(line); more++) {
+                    String next = reader.readLine(); // A quoted field goes on in the next line
+                    if (next == null) {
+                        break;
+                    }
+                    batch.lines++;
+                    line += "\n" + next;
+                    trimmed = line.trim();
+                }
+                if (!trimmed.isEmpty() && trimmed.charAt(0) != '#'
+                        && !(csv ? parseCsv(trimmed, batch) : parseEdgeList(trimmed, batch))) {
+                    batch.skipped++;
+                }
+                if (batch.isFull()) {
+                    if (cancelled.getAsBoolean()) {
+                        return null;
+                    }
+                    lines += batch.lines;
+                    skipped += batch.skipped;
+                    sink.accept(batch);
+                    batch = new Batch();
+                }
+            }
+        }
+        lines += batch.lines;
+        skipped += batch.skipped;
+        sink.accept(batch);
+        return new ImportStats(lines, skipped);
+    }
+
+    /**
+     * Parses one CSV record into the batch.
+     * @return false if the line is malformed (a header line is also reported as malformed)
+     */
+    private static boolean parseCsv(String line, Batch batch) {
+        String[] fields = line.indexOf('"') < 0 ? split(line, ',') : splitQuoted(line);
+        if (fields == null) {
+            return false;
+        }
+        try {
+            if (fields.length == 4 && fields[0].equalsIgnoreCase("node") && !fields[1].isEmpty()) {
+                batch.nodeXs[batch.nodes] = Integer.parseInt(fields[2]);
+                batch.nodeYs[batch.nodes] = Integer.parseInt(fields[3]);
+                batch.nodeNames[batch.nodes++] = fields[1];
+                return true;
+            }
+            if (fields.length == 5 && fields[0].equalsIgnoreCase("edge")) {
+                return addEdge(batch, fields[1], fields[2], Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Parses one edge-list record into the batch.
+     * @return false if the line is malformed
+     */
+    private static boolean parseEdgeList(String line, Batch batch) {
+        String[] fields = split(line, ' ');
+        if (fields.length < 2 || fields.length > 4) {
+            return false;
+        }
+        try {
+            int cost = fields.length > 2 ? Integer.parseInt(fields[2]) : DEFAULT_COST;
+            int bandwidth = fields.length > 3 ? Integer.parseInt(fields[3]) : DEFAULT_BANDWIDTH;
+            return addEdge(batch, fields[0], fields[1], cost, bandwidth);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean addEdge(Batch batch, String a, String b, int cost, int bandwidth) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return false;
+        }
+        batch.edgeSources[batch.edges] = a;
+        batch.edgeTargets[batch.edges] = b;
+        batch.costs[batch.edges] = cost;
+        batch.bandwidths[batch.edges] = bandwidth;
+        batch.edges++;
+        return true;
+    }
+
+    /**
+     * Splits a line on a separator without regular expressions, trimming every field.
+     * A space separator also matches tabs and runs of whitespace.
+     */
+    private static String[] split(String line, char separator) {
+        String[] fields = new String[8];
+        int count = 0, start = 0, length = line.length();
+        boolean whitespace = separator == ' ';
+        while (start <= length) {
+            int end = start;
+            while (end < length && (whitespace ? !Character.isWhitespace(line.charAt(end)) : line.charAt(end) != separator)) {
+                end++;
+            }
+            if (count == fields.length) {
+                fields = Arrays.copyOf(fields, count * 2);
+            }
+            fields[count++] = line.substring(start, end).trim();
+            start = end + 1;
+            while (whitespace && start < length && Character.isWhitespace(line.charAt(start))) {
+                start++; // Collapse runs of whitespace
+            }
+        }
+        return Arrays.copyOf(fields, count);
+    }
+
+    /**
+     * Returns true if a line ends inside a quoted field.
+     */
+    private static boolean openQuote(String line) {
+        int quotes = 0;
+        for (int i = line.indexOf('"'); i >= 0; i = line.indexOf('"', i + 1)) {
+            quotes++;
+        }
+        return quotes % 2 != 0;
+    }
+
+    /**
+     * Splits a CSV record whose fields may be quoted. Unquoted fields are trimmed, quoted ones are kept
+     * as they are with doubled quotes turned into single ones.
+     * @return The fields, or null if a quote is not closed or text follows a closing quote
+     */
+    private static String[] splitQuoted(String line) {
+        String[] fields = new String[8];
+        int count = 0, start = 0, length = line.length();
+        StringBuilder field = new StringBuilder();
+        while (start <= length) {
+            int end = start;
+            while (end < length && Character.isWhitespace(line.charAt(end))) {
+                end++;
+            }
+            String value;
+            if (end < length && line.charAt(end) == '"') {
+                field.setLength(0);
+                int i = end + 1;
+                while (true) {
+                    if (i >= length) {
+                        return null; // Not closed
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < length && Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    return null; // Text after the closing quote
+                }
+                value = field.toString();
+                end = i;
+            } else {
+                end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = length;
+                }
+                value = line.substring(start, end).trim();
+                if (value.indexOf('"') >= 0) {
+                    return null; // Quote inside an unquoted field
+                }
+            }
+            if (count == fields.length) {
+                fields = Arrays.copyOf(fields, count * 2);
+            }
+            fields[count++] = value;
+            start = end + 1;
+        }
+        return Arrays.copyOf(fields, count);
+    }
+
+    /**
+     * Quotes a CSV field if it would not be read back as it is.
+     */
+    private static String csvField(String value) {
+        boolean plain = !value.isEmpty() && value.equals(value.trim());
+        for (int i = 0; plain && i < value.length(); i++) {
+            char c = value.charAt(i);
+            plain = c != ',' && c != '"' && c != '\n' && c != '\r';
+        }
+        return plain ? value : '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Writes a graph as CSV, nodes first. Names are quoted where needed; a carriage return in a name is
+     * read back as a line feed.
+     * @param graph The graph, typically a snapshot
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    static void writeCsv(TopologyGraph graph, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# kind,name|nodeA,x|nodeB,y|cost,bandwidth\n");
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                writer.write("node," + csvField(graph.name(v)) + "," + graph.x(v) + "," + graph.y(v) + "\n");
+            }
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                writer.write("edge," + csvField(graph.name(graph.source(e))) + "," + csvField(graph.name(graph.target(e))) + ","
+                        + graph.cost(e) + "," + graph.bandwidth(e) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes a graph in the binary snapshot format.
+     * Layout (big-endian): magic, version, node count, edge count, then the x, y, source, target, cost
+     * and bandwidth int arrays, then every node name as a byte length followed by UTF-8 bytes.
+     * @param graph The graph, typically a snapshot
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    static void writeSnapshot(TopologyGraph graph, Path file) throws IOException {
+        int n = graph.nodeCount(), m = graph.edgeCount();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(n);
+            out.writeInt(m);
+            for (int v = 0; v < n; v++) out.writeInt(graph.x(v));
+            for (int v = 0; v < n; v++) out.writeInt(graph.y(v));
+            for (int e = 0; e < m; e++) out.writeInt(graph.source(e));
+            for (int e = 0; e < m; e++) out.writeInt(graph.target(e));
+            for (int e = 0; e < m; e++) out.writeInt(graph.cost(e));
+            for (int e = 0; e < m; e++) out.writeInt(graph.bandwidth(e));
+            for (int v = 0; v < n; v++) {
+                byte[] name = graph.name(v).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+        }
+    }
+
+    /**
+     * Loads a binary snapshot through a memory-mapped file.
+     * The int arrays are bulk-copied straight out of the mapping; only the names need decoding.
+     * @param file The snapshot file
+     * @return The loaded graph, ready to replace the live one
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    static TopologyGraph readSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IOException("Not a topology snapshot: " + file);
+                }
+                int version = buffer.getInt();
+                if (version != FORMAT_VERSION) {
+                    throw new IOException("Unsupported snapshot version " + version);
+                }
+                int n = buffer.getInt(), m = buffer.getInt();
+                if (n < 0 || m < 0 || 16L + 8L * n + 16L * m > size) {
+                    throw new IOException("Corrupt snapshot header");
+                }
+                int[] xs = readInts(buffer, n), ys = readInts(buffer, n);
+                int[] sources = readInts(buffer, m), targets = readInts(buffer, m);
+                int[] costs = readInts(buffer, m), bandwidths = readInts(buffer, m);
+                String[] names = new String[n];
+                byte[] bytes = new byte[64];
+                for (int v = 0; v < n; v++) {
+                    int length = buffer.getInt();
+                    if (length < 0 || length > buffer.remaining()) {
+                        throw new IOException("Corrupt node name at node " + v);
+                    }
+                    if (length > bytes.length) {
+                        bytes = new byte[Math.max(length, bytes.length * 2)];
+                    }
+                    buffer.get(bytes, 0, length);
+                    names[v] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                }
+                return TopologyGraph.of(names, xs, ys, sources, targets, costs, bandwidths);
+            } catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values); // Bulk copy from the mapping
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
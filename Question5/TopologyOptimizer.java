@@ -0,0 +1,234 @@
+package Question5;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * TopologyOptimizer computes the minimum-cost spanning backbone of a network and the
+ * maximum-bandwidth (widest) paths between chosen node pairs.
+ * It works on a snapshot of the graph so it can run off the Swing event thread, reports
+ * results progressively through a listener and stops early when cancelled.
+ */
+class TopologyOptimizer {
+
+    /** Number of backbone edges delivered per progress callback */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Receives results while the optimizer runs.
+     */
+    interface Listener {
+        /**
+         * Called with the next batch of backbone (minimum spanning forest) edges.
+         * @param chunk Ids of the backbone edges found since the last call
+         */
+        void backboneEdges(int[] chunk);
+
+        /**
+         * Called once per requested node pair.
+         * @param path The widest path result
+         */
+        void widestPath(WidestPath path);
+    }
+
+    /**
+     * Result of a widest-path query between two nodes.
+     */
+    static class WidestPath {
+        final int source, target; // Queried node pair
+        final int bandwidth; // Bottleneck bandwidth, or -1 if the nodes are not connected
+        final int[] edges; // Edge ids of the path from source to target
+
+        WidestPath(int source, int target, int bandwidth, int[] edges) {
+            this.source = source;
+            this.target = target;
+            this.bandwidth = bandwidth;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * Summary returned when the optimizer finishes.
+     */
+    static class Summary {
+        final long backboneCost; // Total cost of the backbone edges
+        final int backboneEdges; // Number of backbone edges
+        final int components; // Number of connected components of the network
+
+        Summary(long backboneCost, int backboneEdges, int components) {
+            this.backboneCost = backboneCost;
+            this.backboneEdges = backboneEdges;
+            this.components = components;
+        }
+    }
+
+    private final TopologyGraph graph; // Snapshot of the network
+    private final int[][] pairs; // Node id pairs for the widest-path queries
+
+    /**
+     * Constructor taking a snapshot of the network.
+     * @param graph Snapshot of the network, not modified while the optimizer runs
+     * @param pairs Node id pairs for which widest paths are requested
+     */
+    TopologyOptimizer(TopologyGraph graph, int[][] pairs) {
+        this.graph = graph;
+        this.pairs = pairs;
+    }
+
+    /**
+     * Runs the optimization.
+     * @param listener Receives progressive results
+     * @param cancelled Polled regularly, the run stops when it returns true
+     * @return The summary, or null if the run was cancelled
+     */
+    Summary run(Listener listener, BooleanSupplier cancelled) {
+        int n = graph.nodeCount();
+        int m = graph.edgeCount();
+
+        // Kruskal on ascending cost gives the minimum-cost backbone
+        long[] byCost = new long[m];
+        for (int e = 0; e < m; e++) {
+            byCost[e] = ((long) graph.cost(e) << 32) | e; // Sort key in the high half, edge id in the low half
+        }
+        Arrays.sort(byCost);
+        UnionFind backbone = new UnionFind(n);
+        int[] chunk = new int[CHUNK_SIZE];
+        int chunkSize = 0;
+        long totalCost = 0;
+        int backboneEdges = 0;
+        for (int k = 0; k < m; k++) {
+            if ((k & 1023) == 0 && cancelled.getAsBoolean()) {
+                return null; // Stop as soon as the user cancels
+            }
+            int e = (int) byCost[k];
+            if (backbone.union(graph.source(e), graph.target(e))) { // Edge joins two components
+                chunk[chunkSize++] = e;
+                totalCost += graph.cost(e);
+                backboneEdges++;
+                if (chunkSize == CHUNK_SIZE) {
+                    listener.backboneEdges(chunk); // Deliver partial results
+                    chunk = new int[CHUNK_SIZE];
+                    chunkSize = 0;
+                }
+            }
+        }
+        if (chunkSize > 0) {
+            listener.backboneEdges(Arrays.copyOf(chunk, chunkSize));
+        }
+
+        if (pairs.length > 0) {
+            widestPaths(n, m, listener, cancelled);
+        }
+        return cancelled.getAsBoolean() ? null : new Summary(totalCost, backboneEdges, n - backboneEdges);
+    }
+
+    /**
+     * Answers the widest-path queries.
+     * The path between two nodes in a maximum-bandwidth spanning forest is a widest path,
+     * so one Kruskal pass on descending bandwidth serves all requested pairs.
+     */
+    private void widestPaths(int n, int m, Listener listener, BooleanSupplier cancelled) {
+        long[] byBandwidth = new long[m];
+        for (int e = 0; e < m; e++) {
+            byBandwidth[e] = ((long) ~graph.bandwidth(e) << 32) | e; // ~b = -b - 1 reverses the order without overflow; the id fills the low bits
+        }
+        Arrays.sort(byBandwidth);
+        UnionFind forest = new UnionFind(n);
+        int[] head = new int[n]; // Adjacency lists of the forest: head edge slot per node
+        Arrays.fill(head, -1);
+        int[] next = new int[2 * n], slotEdge = new int[2 * n], slotNode = new int[2 * n];
+        int slots = 0;
+        for (int k = 0; k < m; k++) {
+            if ((k & 1023) == 0 && cancelled.getAsBoolean()) {
+                return;
+            }
+            int e = (int) byBandwidth[k];
+            int a = graph.source(e), b = graph.target(e);
+            if (forest.union(a, b)) {
+                slotEdge[slots] = e; slotNode[slots] = b; next[slots] = head[a]; head[a] = slots++;
+                slotEdge[slots] = e; slotNode[slots] = a; next[slots] = head[b]; head[b] = slots++;
+            }
+        }
+
+        int[] parentEdge = new int[n]; // Edge used to reach each node during the tree walk
+        int[] queue = new int[n];
+        for (int[] pair : pairs) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            int source = pair[0], target = pair[1];
+            if (forest.find(source) != forest.find(target)) {
+                listener.widestPath(new WidestPath(source, target, -1, new int[0])); // Not connected
+                continue;
+            }
+
+            // Walk the tree from the source until the target is reached
+            Arrays.fill(parentEdge, -2);
+            parentEdge[source] = -1;
+            int size = 0;
+            queue[size++] = source;
+            for (int i = 0; i < size && parentEdge[target] == -2; i++) {
+                int node = queue[i];
+                for (int s = head[node]; s != -1; s = next[s]) {
+                    if (parentEdge[slotNode[s]] == -2) {
+                        parentEdge[slotNode[s]] = slotEdge[s];
+                        queue[size++] = slotNode[s];
+                    }
+                }
+            }
+
+            // Follow the parent edges back to the source
+            int length = 0;
+            for (int node = target; node != source; node = graph.opposite(parentEdge[node], node)) {
+                length++;
+            }
+            int[] path = new int[length];
+            int bottleneck = Integer.MAX_VALUE;
+            for (int node = target; node != source; node = graph.opposite(parentEdge[node], node)) {
+                int e = parentEdge[node];
+                path[--length] = e; // Fill from the end so the path runs source -> target
+                bottleneck = Math.min(bottleneck, graph.bandwidth(e));
+            }
+            listener.widestPath(new WidestPath(source, target, bottleneck, path));
+        }
+    }
+
+    /**
+     * Union-Find (Disjoint Set) with path compression and union by rank.
+     */
+    static class UnionFind {
+        final int[] parent, rank;
+
+        UnionFind(int n) {
+            parent = new int[n];
+            rank = new int[n];
+            for (int i = 0; i < n; i++) parent[i] = i; // Each node starts as its own set
+        }
+
+        /**
+         * Finds the root of a node, halving the path on the way (no recursion for deep trees).
+         */
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /**
+         * Unites the sets of two nodes.
+         * @return true if they were in different sets
+         */
+        boolean union(int x, int y) {
+            int rootX = find(x), rootY = find(y);
+            if (rootX == rootY) return false;
+            if (rank[rootX] < rank[rootY]) {
+                int t = rootX; rootX = rootY; rootY = t;
+            }
+            parent[rootY] = rootX;
+            if (rank[rootX] == rank[rootY]) rank[rootX]++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package Question6;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of the URLs waiting to be crawled, served in breadth-first order: all URLs found at depth d are
+ * handed out before any URL of depth d + 1. Producers block while the frontier is full, so a hub page with
+ * thousands of links feeds them in as fast as the crawl consumes them instead of flooding memory or an
+ * executor queue.
+ * A URL whose host has all its slots taken is held back with its host and still counts against the capacity;
+ * the host's next released slot goes to its oldest held URL, which is handed out before the levels. A host
+ * with no URLs taken or held is forgotten.
+ */
+class CrawlFrontier implements Frontier {
+
+    /**
+     * The slots taken by one host's URLs and its URLs waiting for one.
+     */
+    private static class Host {
+        int active; // URLs taken and not released
+        final ArrayDeque<Entry> held = new ArrayDeque<>();
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<ArrayDeque<String>> levels = new ArrayList<>(); // FIFO of URLs per depth
+    private final Map<String, Host> hosts = new HashMap<>(); // host:port -> its slots, while it has URLs taken or held
+    private final ArrayDeque<Entry> ready = new ArrayDeque<>(); // Held URLs that were handed a slot
+    private final int capacity;
+    private final int perHostLimit;
+    private int lowest; // No URLs are queued below this depth
+    private int size; // Queued URLs: in the levels, held or ready
+    private int available; // Queued URLs in the levels or ready
+    private boolean closed;
+
+    /**
+     * Creates an empty frontier.
+     * @param capacity Maximum number of queued URLs
+     * @param perHostLimit Maximum number of URLs of one host taken and not released
+     */
+    CrawlFrontier(int capacity, int perHostLimit) {
+        if (capacity < 1 || perHostLimit < 1) {
+            throw new IllegalArgumentException("Capacity and host limit must be positive");
+        }
+        this.capacity = capacity;
+        this.perHostLimit = perHostLimit;
+    }
+
+    @Override
+    public boolean put(String url, int depth) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == capacity && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                return false;
+            }
+            while (levels.size() <= depth) {
+                levels.add(new ArrayDeque<>());
+            }
+            levels.get(depth).addLast(url);
+            lowest = Math.min(lowest, depth);
+            size++;
+            available++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest held URL that was handed a slot or else the oldest URL of the lowest depth whose host
+     * has a free slot, waiting while there is none.
+     * @return The entry, or null once the frontier is closed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Override
+    public Entry take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!closed) {
+                if (available == 0) {
+                    notEmpty.await();
+                    continue;
+                }
+                available--;
+                Entry entry = ready.pollFirst(); // Its slot was passed on by release()
+                if (entry == null) {
+                    while (levels.get(lowest).isEmpty()) {
+                        lowest++;
+                    }
+                    entry = new Entry(levels.get(lowest).pollFirst(), lowest);
+                    Host host = hosts.computeIfAbsent(HostScheduler.hostOf(entry.url), key -> new Host());
+                    if (host.active == perHostLimit) {
+                        host.held.addLast(entry); // Stays queued until a URL of its host is released
+                        continue;
+                    }
+                    host.active++;
+                }
+                size--;
+                notFull.signal();
+                return entry;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes the slot to the host's oldest held URL, if any, or frees it.
+     */
+    @Override
+    public void release(Entry entry) {
+        String key = HostScheduler.hostOf(entry.url);
+        lock.lock();
+        try {
+            Host host = hosts.get(key);
+            if (host == null) {
+                return; // Not taken from this frontier
+            }
+            Entry next = host.held.pollFirst();
+            if (next != null) {
+                ready.addLast(next);
+                available++;
+                notEmpty.signal();
+            } else if (--host.active == 0) {
+                hosts.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package Question6;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saved progress of a crawl in a directory, so a crawl that dies is resumed from where it stopped instead of from
+ * the seed. The seen set is logged as it grows ({@link SeenLog}), and periodic checkpoints write the frontier to
+ * disk: every URL that is accepted but not processed yet (queued or in flight), with the length of the seen log at
+ * that moment. Resuming replays the log up to that length and queues the checkpointed URLs again, so the pages in
+ * flight at the checkpoint and those processed after it are fetched once more and no page is lost.
+ * A checkpoint is written to a temporary file, synced and renamed over the previous one, and carries a CRC32, so
+ * a crash while writing leaves the previous checkpoint intact.
+ */
+class CrawlState implements AutoCloseable {
+
+    static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10); // Between checkpoints
+    private static final int MAGIC = 0x43524157; // "CRAW"
+    private static final int VERSION = 1;
+
+    /**
+     * The state of a crawl at one checkpoint.
+     */
+    static class Checkpoint {
+        final long seenCount; // Entries of the seen log covered by the checkpoint
+        final long crawled, failed, disallowed;
+        final List<Frontier.Entry> pending; // Accepted URLs not processed yet
+
+        Checkpoint(long seenCount, long crawled, long failed, long disallowed, List<Frontier.Entry> pending) {
+            this.seenCount = seenCount;
+            this.crawled = crawled;
+            this.failed = failed;
+            this.disallowed = disallowed;
+            this.pending = pending;
+        }
+    }
+
+    private final Path checkpointFile;
+    private final Path seenFile;
+    private SeenLog seenLog; // Opened by open()
+
+    /**
+     * Uses a directory for the state of one crawl, creating it if needed.
+     * @param directory The directory
+     * @throws IOException If the directory cannot be created
+     */
+    CrawlState(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        checkpointFile = directory.resolve("frontier.chk");
+        seenFile = directory.resolve("seen.log");
+    }
+
+    /**
+     * Loads the last checkpoint, if any, and opens the seen log, replaying the fingerprints it covers into the
+     * seen set.
+     * @param seen The empty seen set of the crawl
+     * @return The checkpoint, or null if there is none and the crawl starts from the seed
+     * @throws IOException If the state cannot be read or is corrupt
+     */
+    Checkpoint open(UrlSeenSet seen) throws IOException {
+        Checkpoint checkpoint = read();
+        seenLog = new SeenLog(seenFile, checkpoint == null ? 0 : checkpoint.seenCount, seen::addFingerprint);
+        return checkpoint;
+    }
+
+    private Checkpoint read() throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream buffered = new BufferedInputStream(Files.newInputStream(checkpointFile))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(checkpointFile + " is not a crawl checkpoint");
+            }
+            long seenCount = in.readLong();
+            long crawled = in.readLong(), failed = in.readLong(), disallowed = in.readLong();
+            int count = in.readInt();
+            List<Frontier.Entry> pending = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int depth = in.readInt();
+                pending.add(new Frontier.Entry(in.readUTF(), depth));
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(buffered).readLong() != expected) { // The checksum itself is not summed
+                throw new IOException(checkpointFile + " is corrupt");
+            }
+            return new Checkpoint(seenCount, crawled, failed, disallowed, pending);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Logs a URL added to the seen set.
+     * @param fingerprint Its fingerprint
+     * @throws IOException If the log cannot grow
+     */
+    void logSeen(long fingerprint) throws IOException {
+        seenLog.append(fingerprint);
+    }
+
+    /**
+     * Returns the number of URLs logged, the seenCount of a checkpoint taken now.
+     * @return The number of fingerprints
+     */
+    long seenCount() {
+        return seenLog.size();
+    }
+
+    /**
+     * Makes the seen log durable up to the checkpoint and then replaces the previous checkpoint.
+     * @param checkpoint The checkpoint; every fingerprint it covers is logged completely
+     * @throws IOException If writing fails; the previous checkpoint is kept
+     */
+    void save(Checkpoint checkpoint) throws IOException {
+        seenLog.force(checkpoint.seenCount);
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checkpoint.seenCount);
+            out.writeLong(checkpoint.crawled);
+            out.writeLong(checkpoint.failed);
+            out.writeLong(checkpoint.disallowed);
+            out.writeInt(checkpoint.pending.size());
+            for (Frontier.Entry entry : checkpoint.pending) {
+                out.writeInt(entry.depth);
+                out.writeUTF(entry.url);
+            }
+            out.flush();
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the state after the crawl completed, so the next crawl starts from its seed.
+     * @throws IOException If a file cannot be deleted
+     */
+    void clear() throws IOException {
+        close();
+        Files.deleteIfExists(checkpointFile);
+        Files.deleteIfExists(seenFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (seenLog != null) {
+            seenLog.close();
+            seenLog = null;
+        }
+    }
+
+    /**
+     * Crawls a local synthetic site in a child JVM that is killed halfway, resumes the crawl here from its state
+     * and reports what was fetched twice; then times the restart of a crawl that has seen millions of URLs.
+     * @param args Optional number of pages (default 50000) and seen URLs for the restart timing (default 5000000)
+     * @throws Exception If a server, the child JVM or the state files fail
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) { // The crawl that gets killed: state, seed, pages
+            try (CrawlerEngine engine = new CrawlerEngine(CrawlerEngine.DEFAULT_CONCURRENCY, CrawlerEngine.DEFAULT_PER_HOST, Integer.parseInt(args[3]))) {
+                engine.persistTo(Path.of(args[1]), Duration.ofSeconds(1));
+                engine.crawl(args[2]);
+            }
+            return;
+        }
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int seenUrls = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        Path directory = Files.createTempDirectory("crawl-state");
+        try (SyntheticSite site = new SyntheticSite(pages, 4)) {
+            Process child = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), CrawlState.class.getName(),
+                    "--child", directory.toString(), site.url(0), String.valueOf(pages)).inheritIO().start();
+            while (site.pageRequests() < pages / 2 && child.isAlive()) {
+                Thread.sleep(10);
+            }
+            child.destroyForcibly().waitFor(); // SIGKILL: no shutdown hooks, no last checkpoint
+            long before = site.pageRequests();
+
+            try (CrawlerEngine engine = new CrawlerEngine(CrawlerEngine.DEFAULT_CONCURRENCY, CrawlerEngine.DEFAULT_PER_HOST, pages)) {
+                long start = System.nanoTime();
+                boolean resumed = engine.persistTo(directory, DEFAULT_INTERVAL);
+                double restore = (System.nanoTime() - start) / 1e6;
+                engine.crawl(site.url(0));
+                long after = site.pageRequests() - before;
+                System.out.printf("killed after %d page requests; %s in %.0f ms; %d more requests; %d pages crawled "
+                                + "(%d failed), %d fetched twice%n", before, resumed ? "resumed" : "NOT resumed", restore,
+                        after, engine.crawled(), engine.failed(), before + after - pages);
+            }
+            System.out.println("state cleared after completion: " + !Files.exists(directory.resolve("seen.log")));
+        }
+
+        CrawlState state = new CrawlState(directory); // A crawl that has seen millions of URLs
+        state.open(new UrlSeenSet(seenUrls, true));
+        List<Frontier.Entry> frontier = new ArrayList<>();
+        for (int i = 0; i < seenUrls; i++) {
+            String url = "http://host" + i % 1000 + ".example/page/" + i;
+            state.logSeen(UrlSeenSet.fingerprint(url));
+            if (i >= seenUrls - CrawlerEngine.DEFAULT_FRONTIER_CAPACITY) {
+                frontier.add(new Frontier.Entry(url, 10));
+            }
+        }
+        state.save(new Checkpoint(seenUrls, seenUrls - frontier.size(), 0, 0, frontier));
+        state.close();
+        long start = System.nanoTime();
+        CrawlState restarted = new CrawlState(directory);
+        UrlSeenSet seen = new UrlSeenSet(seenUrls, true);
+        Checkpoint checkpoint = restarted.open(seen);
+        System.out.printf("restart with %d seen URLs and %d queued: %.0f ms (seen log %d MB, %d URLs restored)%n",
+                seenUrls, checkpoint.pending.size(), (System.nanoTime() - start) / 1e6,
+                Files.size(directory.resolve("seen.log")) >> 20, seen.size());
+        restarted.clear();
+        Files.deleteIfExists(directory);
+    }
+}
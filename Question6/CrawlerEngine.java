@@ -0,0 +1,569 @@
+package Question6;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Concurrent crawler that runs every fetch on its own thread instead of a fixed pool of five.
+ * On Java 21 and later the threads are virtual threads, so thousands of blocked fetches cost little;
+ * on older runtimes it falls back to a cached pool of platform threads. Either way a global semaphore limits
+ * the fetches in flight and the frontier's slots per host limit the load on every single server. The frontier
+ * skips a host whose slots are all taken, its URLs staying queued within the frontier's capacity, so one busy
+ * host can neither tie up the permits the other hosts need nor pull the frontier past its bound.
+ * The thread calling crawl() coordinates: it takes URLs from a bounded breadth-first {@link CrawlFrontier} only
+ * when a fetch permit is free, and every accepted URL is counted until its page is processed, so the crawl
+ * ends exactly when the count drops to zero.
+ * A polite crawler takes them from a {@link HostScheduler} instead, which rate limits every host, and does not
+ * accept the URLs a host's robots.txt disallows; its Crawl-delay lowers the host's rate.
+ * A crawler persisted to a directory ({@link #persistTo}) logs its seen set and checkpoints its frontier there
+ * periodically, and resumes from the last checkpoint after a crash. A checkpoint takes the write side of a
+ * read-write lock whose read side covers every change to the seen log and to the accepted but unprocessed
+ * URLs, so it is a consistent cut: every logged URL is either processed, with all of its links logged, or in
+ * the checkpoint.
+ * Unless switched off, URLs are normalized before they are checked against the seen set, and a stage after
+ * every fetch compares the SimHash of the page text with the pages crawled before: the links of a
+ * near-duplicate (mirror, session or parameter variant) are not followed, which cuts the duplicate subtrees off
+ * at their first page. The SimHashes are not persisted; a resumed crawl starts comparing afresh.
+ */
+class CrawlerEngine implements AutoCloseable {
+
+    static final int DEFAULT_CONCURRENCY = 200; // Fetches in flight over all hosts
+    static final int DEFAULT_PER_HOST = 50; // Fetches in flight per host
+    static final int DEFAULT_FRONTIER_CAPACITY = 100_000; // Queued URLs before link producers wait
+    static final int HOST_BURST = 4; // Requests a polite crawler sends a host at once after idling
+
+    private final ExecutorService executor;
+    private final HttpFetcher fetcher; // Shared HTTP client and connection pool
+    private final Semaphore permits; // One permit per fetch in flight
+    private final UrlSeenSet seen; // Fingerprints of the URLs already accepted for crawling
+    private final int maxPages; // Upper bound on the URLs accepted
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final Frontier frontier;
+    private final HostScheduler scheduler; // The frontier of a polite crawler, else null
+    private final RobotsCache robots; // null if robots.txt is ignored
+    private final AtomicInteger pending = new AtomicInteger(); // Accepted URLs whose page is not processed yet
+    private final LongAdder crawled = new LongAdder(), failed = new LongAdder(), disallowed = new LongAdder();
+    private final LongAdder nearDuplicates = new LongAdder(); // Crawled pages whose links were not followed
+    private final SimHashIndex contents = new SimHashIndex(); // SimHashes of the pages whose links were followed
+    private volatile boolean deduplicate = true;
+    private volatile BiConsumer<String, String> pageListener = (url, title) -> { };
+    private CrawlState state; // Saved progress, null unless persisted
+    private long checkpointMillis; // Time between checkpoints
+    private List<Frontier.Entry> resumed; // URLs of the last checkpoint, queued again by crawl()
+    private final Map<String, Integer> inProgress = new ConcurrentHashMap<>(); // Accepted, unprocessed URL -> depth, if persisted
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock(); // Write side taken by checkpoints
+    private volatile ScheduledExecutorService checkpoints; // Runs the checkpoints during crawl()
+    private volatile boolean closed;
+
+    /**
+     * Creates a crawler running its fetches on {@link #newFetchExecutor()}.
+     * @param concurrency Maximum number of fetches in flight
+     * @param perHostLimit Maximum number of fetches in flight to one host
+     * @param maxPages Maximum number of pages to crawl
+     */
+    CrawlerEngine(int concurrency, int perHostLimit, int maxPages) {
+        this(newFetchExecutor(), concurrency, perHostLimit, maxPages);
+    }
+
+    /**
+     * Creates a crawler.
+     * @param executor Runs the fetches, shut down by close(); needs a thread per concurrent fetch
+     * @param concurrency Maximum number of fetches in flight
+     * @param perHostLimit Maximum number of fetches in flight to one host
+     * @param maxPages Maximum number of pages to crawl
+     */
+    CrawlerEngine(ExecutorService executor, int concurrency, int perHostLimit, int maxPages) {
+        this(executor, concurrency, perHostLimit, maxPages, 0);
+    }
+
+    /**
+     * Creates a crawler that is polite if hostRate is positive: it fetches at most hostRate pages per second
+     * from any host (after a burst of HOST_BURST) and obeys robots.txt.
+     * @param executor Runs the fetches, shut down by close(); needs a thread per concurrent fetch
+     * @param concurrency Maximum number of fetches in flight
+     * @param perHostLimit Maximum number of fetches in flight to one host
+     * @param maxPages Maximum number of pages to crawl
+     * @param hostRate Pages per second and host, or 0 for no rate limit and no robots.txt
+     */
+    CrawlerEngine(ExecutorService executor, int concurrency, int perHostLimit, int maxPages, double hostRate) {
+        if (concurrency < 1 || perHostLimit < 1) {
+            throw new IllegalArgumentException("Concurrency limits must be positive");
+        }
+        this.executor = executor;
+        fetcher = new HttpFetcher(executor);
+        if (hostRate > 0) {
+            scheduler = new HostScheduler(DEFAULT_FRONTIER_CAPACITY, perHostLimit, hostRate, HOST_BURST);
+            frontier = scheduler;
+            robots = new RobotsCache(fetcher, RobotsCache.DEFAULT_TTL);
+        } else {
+            scheduler = null;
+            frontier = new CrawlFrontier(DEFAULT_FRONTIER_CAPACITY, perHostLimit);
+            robots = null;
+        }
+        permits = new Semaphore(concurrency);
+        this.maxPages = maxPages;
+        seen = new UrlSeenSet(maxPages + concurrency + 1, true); // Racing submitters may pass the page limit by one each
+    }
+
+    /**
+     * Creates the executor running the fetches: one virtual thread per task when the runtime has them
+     * (Java 21+), otherwise a cached pool of daemon platform threads. A fetch permit is taken before a task is
+     * submitted, so the fallback never runs more fetches than the concurrency limit.
+     * @return The executor
+     */
+    static ExecutorService newFetchExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "crawler-fetch");
+                thread.setDaemon(true); // Do not keep the application alive
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Sets the callback receiving the URL and title of every crawled page, called on the fetch threads.
+     * @param listener The callback
+     */
+    void setPageListener(BiConsumer<String, String> listener) {
+        pageListener = listener;
+    }
+
+    /**
+     * Switches URL normalization and near-duplicate detection on (the default) or off, leaving only the exact
+     * URL check.
+     * @param enabled false to compare URLs as they are written and follow the links of every page
+     */
+    void setDeduplication(boolean enabled) {
+        deduplicate = enabled;
+    }
+
+    /**
+     * Saves the crawl's progress in a directory and resumes the crawl saved there, if any. Must be called
+     * before crawl(); a resumed crawl ignores its seed URLs. The directory is cleared once the crawl completes.
+     * @param directory The directory for the state of this crawl
+     * @param interval Time between checkpoints
+     * @return true if a saved crawl is resumed
+     * @throws IOException If the state cannot be read or is corrupt
+     */
+    boolean persistTo(Path directory, Duration interval) throws IOException {
+        state = new CrawlState(directory);
+        checkpointMillis = Math.max(1, interval.toMillis());
+        CrawlState.Checkpoint checkpoint = state.open(seen); // Replays the seen log into the seen set
+        if (checkpoint == null) {
+            return false;
+        }
+        crawled.add(checkpoint.crawled);
+        failed.add(checkpoint.failed);
+        disallowed.add(checkpoint.disallowed);
+        accepted.set((int) (checkpoint.crawled + checkpoint.failed)); // The resumed URLs are counted when queued
+        resumed = checkpoint.pending;
+        return true;
+    }
+
+    /**
+     * Crawls from a seed URL until no page has unvisited links left or maxPages pages were accepted.
+     * The calling thread dispatches the fetches and returns when the crawl is complete.
+     * @param seedUrl Initial URL to start crawling
+     * @throws InterruptedException If the calling thread is interrupted; the crawl is stopped
+     */
+    void crawl(String seedUrl) throws InterruptedException {
+        crawl(List.of(seedUrl));
+    }
+
+    /**
+     * Crawls from several seed URLs, for example one per host, like {@link #crawl(String)}.
+     * @param seedUrls Initial URLs to start crawling
+     * @throws InterruptedException If the calling thread is interrupted; the crawl is stopped
+     */
+    void crawl(List<String> seedUrls) throws InterruptedException {
+        pending.incrementAndGet(); // Keeps the crawl open while the seeds are queued
+        if (resumed != null) {
+            requeue(resumed);
+            resumed = null;
+        } else {
+            for (String seedUrl : seedUrls) {
+                submit(seedUrl, 0);
+            }
+        }
+        finish();
+        if (state != null) {
+            checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "crawl-checkpoint");
+                thread.setDaemon(true); // Do not keep the application alive
+                return thread;
+            });
+            checkpoints.scheduleWithFixedDelay(this::checkpoint, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            while (true) {
+                permits.acquire(); // Take a URL only when it can be fetched right away
+                Frontier.Entry entry = frontier.take(); // Holds a slot of its host
+                if (entry == null) { // Closed by the last page: done
+                    permits.release();
+                    return;
+                }
+                executor.execute(() -> fetch(entry));
+            }
+        } finally {
+            stopCheckpoints(); // Before closing the frontier: URLs dropped by it must not count as processed
+            if (state != null && !closed) {
+                if (pending.get() == 0) {
+                    clearState();
+                } else {
+                    checkpoint(); // Interrupted: a last checkpoint, the fetches in flight are still pending
+                }
+            }
+            frontier.close(); // Releases producers still waiting if the crawl was interrupted
+        }
+    }
+
+    /**
+     * Queues the URLs of a checkpoint again, on an executor thread because the frontier may not hold them all.
+     * They stay in progress (and in later checkpoints) until they are processed.
+     */
+    private void requeue(List<Frontier.Entry> entries) {
+        entries.sort(Comparator.comparingInt(entry -> entry.depth)); // Breadth-first, as they were found
+        for (Frontier.Entry entry : entries) {
+            inProgress.put(entry.url, entry.depth);
+        }
+        pending.incrementAndGet(); // Keeps the crawl open until all are queued
+        executor.execute(() -> {
+            try {
+                for (Frontier.Entry entry : entries) {
+                    accepted.incrementAndGet();
+                    if (!enqueue(entry.url, entry.depth)) {
+                        break; // The crawl was stopped
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Stopped by close()
+            } finally {
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Saves a checkpoint: the URLs in progress and the length of the seen log, copied under the write lock so
+     * that no URL is between the two; the copy is written outside the lock.
+     */
+    private void checkpoint() {
+        CrawlState.Checkpoint checkpoint;
+        stateLock.writeLock().lock();
+        try {
+            List<Frontier.Entry> entries = new ArrayList<>(inProgress.size());
+            inProgress.forEach((url, depth) -> entries.add(new Frontier.Entry(url, depth)));
+            checkpoint = new CrawlState.Checkpoint(state.seenCount(), crawled.sum(), failed.sum(), disallowed.sum(), entries);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            state.save(checkpoint);
+        } catch (IOException e) {
+            e.printStackTrace(); // The previous checkpoint is kept; the next one may succeed
+        }
+    }
+
+    private void stopCheckpoints() {
+        ScheduledExecutorService timer = checkpoints;
+        if (timer != null) {
+            timer.shutdown(); // Lets a running checkpoint finish
+            try {
+                timer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void clearState() {
+        try {
+            state.clear();
+        } catch (IOException e) {
+            e.printStackTrace(); // A stale state resumes a completed crawl, which ends at once
+        }
+    }
+
+    /**
+     * Accepts a URL if it is new, allowed by robots.txt and the page limit is not reached, and queues it,
+     * waiting while the frontier is full.
+     * @return true if the URL was accepted
+     */
+    private boolean submit(String url, int depth) throws InterruptedException {
+        if (accepted.get() >= maxPages) {
+            return false;
+        }
+        if (deduplicate) {
+            url = UrlNormalizer.normalize(url);
+        }
+        if (robots != null) { // Checked before the seen set, which disallowed URLs would fill
+            if (seen.contains(url)) {
+                return false; // Most links are known: no robots.txt lookup
+            }
+            if (!allowedByRobots(url)) {
+                disallowed.increment(); // Counts the links, which may repeat
+                return false;
+            }
+        }
+        if (!markSeen(url, depth)) {
+            return false;
+        }
+        if (accepted.incrementAndGet() > maxPages) {
+            finished(url, null);
+            return false;
+        }
+        return enqueue(url, depth);
+    }
+
+    /**
+     * Adds a URL to the seen set and, if the crawl is persisted, to the seen log and the URLs in progress.
+     * @return true if the URL was not seen before
+     */
+    private boolean markSeen(String url, int depth) {
+        if (state == null) {
+            return seen.add(url);
+        }
+        stateLock.readLock().lock();
+        try {
+            long fingerprint = UrlSeenSet.fingerprint(url);
+            if (!seen.addFingerprint(fingerprint)) {
+                return false;
+            }
+            state.logSeen(fingerprint);
+            inProgress.put(url, depth);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues an accepted URL, waiting while the frontier is full.
+     * @return false if the crawl was stopped
+     */
+    private boolean enqueue(String url, int depth) throws InterruptedException {
+        pending.incrementAndGet();
+        if (!frontier.put(url, depth)) {
+            finished(url, null);
+            finish();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a URL against its host's robots.txt, fetching that first if needed, and applies the host's
+     * Crawl-delay before its first URL is queued.
+     */
+    private boolean allowedByRobots(String url) throws InterruptedException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return true; // Its fetch fails and is counted
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+            return true;
+        }
+        RobotsCache.Rules rules = robots.rules(uri);
+        if (rules.crawlDelay > 0) {
+            scheduler.setCrawlDelay(HostScheduler.hostOf(url), rules.crawlDelay);
+        }
+        return rules.allows(uri);
+    }
+
+    /**
+     * Counts a URL as processed and, if the crawl is persisted, removes it from the URLs in progress.
+     * @param outcome The counter to increment, or null
+     */
+    private void finished(String url, LongAdder outcome) {
+        if (state == null) {
+            if (outcome != null) {
+                outcome.increment();
+            }
+            return;
+        }
+        stateLock.readLock().lock();
+        try {
+            inProgress.remove(url);
+            if (outcome != null) {
+                outcome.increment();
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases one pending count, held by every accepted URL until its page is processed. The last one closes
+     * the frontier, which ends the crawl: with nothing pending no page is in flight and none can produce more
+     * links.
+     */
+    private void finish() {
+        if (pending.decrementAndGet() == 0) {
+            frontier.close();
+        }
+    }
+
+    /**
+     * Fetches one page, reports it and queues its links. Runs on its own thread holding one fetch permit and
+     * a slot of its host. Both are released as soon as the download is complete: queueing the links may wait
+     * for frontier space, and the coordinator needs free permits to make that space.
+     */
+    private void fetch(Frontier.Entry entry) {
+        boolean released = false;
+        LongAdder outcome = failed; // Unreachable host, HTTP error, malformed URL or interrupted by close()
+        try {
+            LinkExtractor.Page page;
+            try {
+                page = fetcher.fetch(entry.url);
+            } finally {
+                frontier.release(entry);
+            }
+            permits.release();
+            released = true;
+
+            pageListener.accept(entry.url, page.title);
+            outcome = crawled;
+            for (String newUrl : followedLinks(page)) {
+                submit(newUrl, entry.depth + 1);
+            }
+        } catch (Exception e) {
+            // Counted as the outcome reached so far
+        } finally {
+            if (!released) {
+                permits.release();
+            }
+            finished(entry.url, outcome); // After its links: a checkpoint keeps the page until they are logged
+            finish();
+        }
+    }
+
+    /**
+     * Deduplication stage: returns the links of a page to follow, none if the page is a near-duplicate of a
+     * page crawled before. Its links then lead to (near-)copies of pages the other page links to.
+     */
+    private Collection<String> followedLinks(LinkExtractor.Page page) {
+        if (deduplicate && page.simHash != 0 && !contents.add(page.simHash)) {
+            nearDuplicates.increment();
+            return List.of();
+        }
+        return page.links;
+    }
+
+    long crawled() {
+        return crawled.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long disallowed() {
+        return disallowed.sum();
+    }
+
+    long nearDuplicates() {
+        return nearDuplicates.sum();
+    }
+
+    int queued() {
+        return frontier.size();
+    }
+
+    /**
+     * Stops all running fetches and the executor. A persisted crawl keeps its last checkpoint.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        stopCheckpoints(); // Fetches failing from the shutdown must not be checkpointed as processed
+        frontier.close();
+        executor.shutdownNow();
+        if (state != null) {
+            try {
+                state.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Crawls a local synthetic site and reports the throughput, first with five concurrent fetches like
+     * {@link Web}, then with the default limits. Then crawls one host whose first page links to more pages than
+     * the frontier holds until the frontier has been full for a second, and checks that the URLs queued,
+     * including those waiting for a slot of the host, never exceed its capacity.
+     * @param args Optional number of pages (default 100000)
+     * @throws Exception If the local server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        try (SyntheticSite site = new SyntheticSite(pages, 4)) {
+            for (int concurrency : new int[] {5, DEFAULT_CONCURRENCY}) {
+                try (CrawlerEngine engine = new CrawlerEngine(concurrency, Math.min(concurrency, DEFAULT_PER_HOST), pages)) {
+                    long start = System.nanoTime();
+                    engine.crawl(site.url(0));
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d in flight: %d pages (%d failed) in %.1f s, %.0f pages/s%n",
+                            concurrency, engine.crawled(), engine.failed(), seconds, engine.crawled() / seconds);
+                }
+            }
+        }
+
+        int hubLinks = DEFAULT_FRONTIER_CAPACITY * 5 / 2;
+        try (SyntheticSite site = new SyntheticSite(hubLinks + 1, hubLinks);
+             CrawlerEngine engine = new CrawlerEngine(DEFAULT_CONCURRENCY, DEFAULT_PER_HOST, hubLinks + 1)) {
+            AtomicInteger mostQueued = new AtomicInteger();
+            Thread crawler = Thread.currentThread();
+            Thread sampler = new Thread(() -> {
+                long start = System.nanoTime(), filledAt = 0;
+                try {
+                    while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30)
+                            && (filledAt == 0 || System.nanoTime() - filledAt < TimeUnit.SECONDS.toNanos(1))) {
+                        if (mostQueued.accumulateAndGet(engine.queued(), Math::max) >= DEFAULT_FRONTIER_CAPACITY && filledAt == 0) {
+                            filledAt = System.nanoTime();
+                        }
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    // Not interrupted
+                }
+                crawler.interrupt(); // Stops the crawl
+            });
+            sampler.start();
+            try {
+                engine.crawl(site.url(0));
+            } catch (InterruptedException e) {
+                // Stopped by the sampler
+            }
+            sampler.join();
+            System.out.printf("one host with a hub page: %d pages crawled, at most %d of %d URLs queued -> %s%n",
+                    engine.crawled(), mostQueued.get(), DEFAULT_FRONTIER_CAPACITY,
+                    mostQueued.get() <= DEFAULT_FRONTIER_CAPACITY ? "ok" : "FRONTIER OVERFLOW");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package Question6;
+
+/**
+ * Queue of the URLs waiting to be crawled, filled by the fetch threads and drained by the crawl coordinator.
+ * Implementations decide the order in which URLs are handed out, but never hand out more URLs of one host at a
+ * time than its slots: the URLs of a host whose slots are all taken wait in the frontier, within its capacity.
+ */
+interface Frontier {
+
+    /**
+     * A queued URL with the number of links followed from the seed to reach it.
+     */
+    class Entry {
+        final String url;
+        final int depth;
+
+        Entry(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Queues a URL, waiting while the frontier is full.
+     * @param url The URL
+     * @param depth Its depth from the seed
+     * @return false if the frontier was closed and the URL dropped
+     * @throws InterruptedException If interrupted while waiting
+     */
+    boolean put(String url, int depth) throws InterruptedException;
+
+    /**
+     * Removes the next URL to crawl whose host has a free slot, waiting until there is one. The URL holds the
+     * slot until it is released.
+     * @return The entry, or null once the frontier is closed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    Entry take() throws InterruptedException;
+
+    /**
+     * Frees the host slot held by a URL taken from the frontier, once its fetch is done.
+     * @param entry The entry returned by take()
+     */
+    void release(Entry entry);
+
+    /**
+     * Closes the frontier: waiting and later calls return at once and queued URLs are dropped.
+     */
+    void close();
+
+    /**
+     * Returns the number of queued URLs, including those waiting for a slot of their host.
+     * @return The number of URLs
+     */
+    int size();
+}
@@ -0,0 +1,357 @@
+package Question6;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Polite frontier: URLs wait in one FIFO queue per host (host:port), and every host has a token bucket that
+ * limits how fast its URLs are handed out. Hosts with queued URLs sit in a delay queue ordered by the time their
+ * next token is available, so take() always serves the host that is ready first and never scans the others:
+ * many hosts are crawled at full speed side by side while each single host gets at most its rate (plus a short
+ * burst after idling). A host's rate can be lowered afterwards, for example to its robots.txt Crawl-delay.
+ * A host whose slots are all taken by URLs not yet released leaves the delay queue, its URLs staying queued,
+ * until one is released.
+ * Like {@link CrawlFrontier} the frontier is bounded and producers wait while it is full. A host's record
+ * (about 100 bytes) is kept for the whole crawl so its bucket is not refilled by forgetting it.
+ */
+class HostScheduler implements Frontier {
+
+    /**
+     * Token bucket of one host: tokens refill continuously at the host's rate up to the burst size, and every
+     * URL handed out takes one.
+     */
+    static class TokenBucket {
+        private double rate; // Tokens per nanosecond
+        private double burst; // Maximum number of tokens
+        private double tokens;
+        private long refilledAt; // System.nanoTime() of the last refill
+
+        /**
+         * Creates a full bucket.
+         * @param perSecond Tokens per second, positive and finite
+         * @param burst Maximum number of tokens, at least 1
+         * @param now The current System.nanoTime()
+         */
+        TokenBucket(double perSecond, double burst, long now) {
+            rate = perSecond / 1e9;
+            this.burst = burst;
+            tokens = burst;
+            refilledAt = now;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * rate);
+            refilledAt = now;
+        }
+
+        /**
+         * Returns how long it takes until a token is available.
+         * @param now The current System.nanoTime()
+         * @return The wait in nanoseconds, 0 if a token is available now
+         */
+        long delayNanos(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate);
+        }
+
+        /**
+         * Takes a token; the caller checked delayNanos() first.
+         * @param now The current System.nanoTime()
+         */
+        void consume(long now) {
+            refill(now);
+            tokens -= 1;
+        }
+
+        /**
+         * Changes the rate and burst, keeping the tokens already earned up to the new burst.
+         * @param perSecond Tokens per second, positive and finite
+         * @param burst Maximum number of tokens, at least 1
+         * @param now The current System.nanoTime()
+         */
+        void setRate(double perSecond, double burst, long now) {
+            refill(now);
+            rate = perSecond / 1e9;
+            this.burst = burst;
+            tokens = Math.min(tokens, burst);
+        }
+
+        double perSecond() {
+            return rate * 1e9;
+        }
+    }
+
+    /**
+     * Queued URLs and rate limit of one host.
+     */
+    private static class Host {
+        final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        final TokenBucket bucket;
+        long readyAt; // System.nanoTime() when the next URL may be taken, while scheduled
+        boolean scheduled; // In the delay queue; exactly the hosts with queued URLs and a free slot are
+        int active; // URLs taken and not released
+
+        Host(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition changed = lock.newCondition(); // A host was scheduled or the frontier closed
+    private final Map<String, Host> hosts = new HashMap<>(); // host:port -> its record
+    private final PriorityQueue<Host> delays = new PriorityQueue<>((a, b) -> Long.compare(a.readyAt - b.readyAt, 0));
+    private final int capacity;
+    private final int perHostLimit; // Slots of a host
+    private final double perSecond; // Default rate of a host
+    private final int burst; // Default burst of a host
+    private int size;
+    private boolean closed;
+
+    /**
+     * Creates an empty scheduler.
+     * @param capacity Maximum number of queued URLs over all hosts
+     * @param perHostLimit Maximum number of URLs of one host taken and not released
+     * @param perSecond URLs handed out per second and host
+     * @param burst URLs a host may get at once after idling
+     */
+    HostScheduler(int capacity, int perHostLimit, double perSecond, int burst) {
+        if (capacity < 1 || perHostLimit < 1) {
+            throw new IllegalArgumentException("Capacity and host limit must be positive");
+        }
+        if (!(perSecond > 0) || Double.isInfinite(perSecond) || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate " + perSecond + " or burst " + burst);
+        }
+        this.capacity = capacity;
+        this.perHostLimit = perHostLimit;
+        this.perSecond = perSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Returns the key under which a URL's host is scheduled.
+     * @param url The URL
+     * @return Its host:port, or "" if the URL cannot be parsed (its fetch fails later)
+     */
+    static String hostOf(String url) {
+        try {
+            String authority = URI.create(url).getAuthority();
+            return authority == null ? "" : authority;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Queues a URL behind the other URLs of its host, waiting while the scheduler is full.
+     */
+    @Override
+    public boolean put(String url, int depth) throws InterruptedException {
+        String key = hostOf(url);
+        lock.lockInterruptibly();
+        try {
+            while (size == capacity && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                return false;
+            }
+            Host host = host(key);
+            host.queue.addLast(new Entry(url, depth));
+            size++;
+            if (!host.scheduled && host.active < perHostLimit) {
+                schedule(host);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a host with queued URLs and a free slot into the delay queue.
+     */
+    private void schedule(Host host) {
+        long now = System.nanoTime();
+        host.readyAt = now + host.bucket.delayNanos(now);
+        host.scheduled = true;
+        delays.add(host);
+        changed.signal(); // The host may be ready before the one take() waits for
+    }
+
+    /**
+     * Returns the record of a host, creating it with the default rate and a full bucket.
+     */
+    private Host host(String key) {
+        return hosts.computeIfAbsent(key, k -> new Host(new TokenBucket(perSecond, burst, System.nanoTime())));
+    }
+
+    /**
+     * Removes the next URL of the host whose token is available first among those with a free slot, waiting
+     * until one is.
+     */
+    @Override
+    public Entry take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!closed) {
+                Host host = delays.peek();
+                if (host == null) {
+                    changed.await();
+                    continue;
+                }
+                long now = System.nanoTime();
+                long delay = host.readyAt - now;
+                if (delay > 0) {
+                    changed.awaitNanos(delay);
+                    continue;
+                }
+                delays.poll();
+                long wait = host.bucket.delayNanos(now);
+                if (wait > 0) { // The host's rate was lowered after it was scheduled
+                    host.readyAt = now + wait;
+                    delays.add(host);
+                    continue;
+                }
+                host.bucket.consume(now);
+                Entry entry = host.queue.pollFirst();
+                host.active++;
+                size--;
+                notFull.signal();
+                if (host.queue.isEmpty() || host.active == perHostLimit) {
+                    host.scheduled = false;
+                } else {
+                    host.readyAt = now + host.bucket.delayNanos(now);
+                    delays.add(host);
+                }
+                return entry;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a slot of the URL's host and schedules the host again if it has queued URLs.
+     */
+    @Override
+    public void release(Entry entry) {
+        String key = hostOf(entry.url);
+        lock.lock();
+        try {
+            Host host = hosts.get(key);
+            if (host == null || host.active == 0) {
+                return; // Not taken from this scheduler
+            }
+            host.active--;
+            if (!host.scheduled && !host.queue.isEmpty()) {
+                schedule(host);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lowers a host's rate to one URL per crawl delay, with no burst. Does nothing if the host is already
+     * slower. Called before the host's first URL is queued, it holds from the first request on.
+     * @param host The host:port
+     * @param seconds The delay between two requests to the host
+     */
+    void setCrawlDelay(String host, double seconds) {
+        double limit = 1 / seconds;
+        if (!(limit > 0) || Double.isInfinite(limit)) {
+            return;
+        }
+        lock.lock();
+        try {
+            Host record = host(host);
+            if (record.bucket.perSecond() > limit) {
+                record.bucket.setRate(limit, 1, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Crawls several local synthetic sites, each on its own port, with a polite crawler and reports for every
+     * site how fast its pages were requested against its limit. Site 0 disallows /page/1*, site 1 asks this
+     * crawler for a Crawl-delay of 0.25 s, site 2 disallows everything and the others have no robots.txt.
+     * @param args Optional number of sites (default 8), pages per site (default 60) and pages per second and
+     *             host (default 20)
+     * @throws Exception If a local server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int siteCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        SyntheticSite[] sites = new SyntheticSite[siteCount];
+        List<String> seeds = new ArrayList<>();
+        try {
+            for (int i = 0; i < siteCount; i++) {
+                sites[i] = new SyntheticSite(pages, 4);
+                seeds.add(sites[i].url(0));
+            }
+            sites[0].setRobots("User-agent: *\nDisallow: /page/1\n");
+            if (siteCount > 1) {
+                sites[1].setRobots("User-agent: *\nDisallow: /\n\nUser-agent: " + HttpFetcher.USER_AGENT + "\nCrawl-delay: 0.25\n");
+            }
+            if (siteCount > 2) {
+                sites[2].setRobots("User-agent: *\nDisallow: /\n");
+            }
+            try (CrawlerEngine engine = new CrawlerEngine(CrawlerEngine.newFetchExecutor(), CrawlerEngine.DEFAULT_CONCURRENCY,
+                    CrawlerEngine.DEFAULT_PER_HOST, siteCount * pages, rate)) {
+                long start = System.nanoTime();
+                engine.crawl(seeds);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d sites: %d pages (%d failed, %d disallowed) in %.1f s, %.0f pages/s%n", siteCount,
+                        engine.crawled(), engine.failed(), engine.disallowed(), seconds, engine.crawled() / seconds);
+            }
+            for (int i = 0; i < siteCount; i++) {
+                double span = sites[i].pageRequestSpan() / 1e9;
+                double limit = i == 1 ? 4 : rate;
+                long allowed = (long) ((i == 1 ? 1 : CrawlerEngine.HOST_BURST) + limit * span) + 1; // One for timing jitter
+                System.out.printf("site %d (port %d): %d pages in %.2f s, %.1f pages/s, limit %.0f/s -> %s%n", i,
+                        sites[i].port(), sites[i].pageRequests(), span, span > 0 ? (sites[i].pageRequests() - 1) / span : 0,
+                        limit, sites[i].pageRequests() <= allowed ? "ok" : "TOO FAST");
+            }
+        } finally {
+            for (SyntheticSite site : sites) {
+                if (site != null) {
+                    site.close();
+                }
+            }
+        }
+    }
+}
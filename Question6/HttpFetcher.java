@@ -0,0 +1,264 @@
+package Question6;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetches pages with one shared {@link HttpClient}: its connection pool keeps connections alive between
+ * requests, HTTP/2 is used where the server offers it, responses are requested gzip or deflate compressed and
+ * decoded while they stream into the {@link LinkExtractor}, and connecting, waiting for the response headers
+ * and reading the body time out. Pages can be fetched blocking (one thread per fetch) or as asynchronous pipelines.
+ */
+class HttpFetcher {
+
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30); // Until the response headers arrive
+    static final Duration READ_TIMEOUT = Duration.ofSeconds(30); // For reading the body after the headers
+    static final String USER_AGENT = "WebCrawler/1.0"; // Product token matched against robots.txt groups
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "fetch-timeout");
+        thread.setDaemon(true); // Do not keep the application alive
+        return thread;
+    });
+
+    private final HttpClient client;
+    private final ExecutorService executor; // Runs the asynchronous extraction
+    private final Queue<LinkExtractor> extractors = new ConcurrentLinkedQueue<>(); // Idle scanners with their buffers
+
+    /**
+     * Creates a fetcher.
+     * The client keeps its own executor for its callbacks: blocking fetches wait on those callbacks, so running
+     * them on a bounded fetch pool whose threads are all blocked in {@link #fetch(String)} would deadlock.
+     * @param executor Runs the extraction of asynchronous fetches; not shut down here
+     */
+    HttpFetcher(ExecutorService executor) {
+        this.executor = executor;
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // Falls back to HTTP/1.1 when the server does not support it
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Fetches a page and extracts its title and links, blocking the calling thread.
+     * @param url The page URL
+     * @return The title and links of the page
+     * @throws IOException If the request fails, times out or the server answers with an error status
+     * @throws InterruptedException If the calling thread is interrupted
+     */
+    LinkExtractor.Page fetch(String url) throws IOException, InterruptedException {
+        return extract(client.send(request(url), HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    /**
+     * Fetches a page without blocking: the request is sent asynchronously and the body is extracted on the
+     * executor once the headers arrive.
+     * @param url The page URL
+     * @return A future completing with the page, or exceptionally like {@link #fetch(String)}
+     */
+    CompletableFuture<LinkExtractor.Page> fetchAsync(String url) {
+        return client.sendAsync(request(url), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> {
+                    try {
+                        return extract(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+    }
+
+    /**
+     * Fetches a small text resource such as robots.txt.
+     * @param url The URL
+     * @param maxBytes Bytes of the body to read; the rest is dropped
+     * @return The body decoded as UTF-8, or null if the server answers 4xx (the resource does not exist)
+     * @throws IOException If the request fails, times out or the server answers 5xx
+     * @throws InterruptedException If the calling thread is interrupted
+     */
+    String fetchText(String url, int maxBytes) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(request(url), HttpResponse.BodyHandlers.ofInputStream());
+        return read(response, body -> {
+            if (response.statusCode() >= 500) {
+                throw new IOException("HTTP " + response.statusCode() + " for " + response.uri());
+            }
+            return response.statusCode() >= 400 ? null : new String(body.readNBytes(maxBytes), StandardCharsets.UTF_8);
+        });
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET()
+                .build();
+    }
+
+    /**
+     * Streams the body through a pooled extractor.
+     */
+    private LinkExtractor.Page extract(HttpResponse<InputStream> response) throws IOException {
+        return read(response, body -> {
+            if (response.statusCode() >= 400) {
+                throw new IOException("HTTP " + response.statusCode() + " for " + response.uri());
+            }
+            LinkExtractor extractor = extractors.poll();
+            if (extractor == null) {
+                extractor = new LinkExtractor(); // The pool grows to the number of fetches in flight
+            }
+            try {
+                return extractor.extract(body, response.uri()); // Final URI after redirects
+            } finally {
+                extractors.offer(extractor);
+            }
+        });
+    }
+
+    /**
+     * Reads a response body.
+     */
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Decodes the body, passes it to the reader and closes it. The body is closed early if it is not read
+     * within READ_TIMEOUT, which fails the blocked read.
+     */
+    private static <T> T read(HttpResponse<InputStream> response, BodyReader<T> reader) throws IOException {
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> timeout = TIMER.schedule(() -> {
+            timedOut.set(true);
+            try {
+                response.body().close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }, READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        try (InputStream body = decode(response)) { // Closing returns the connection to the pool
+            return reader.read(body);
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new HttpTimeoutException("Read timed out for " + response.uri());
+            }
+            throw e;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * Wraps the body in a decompressing stream according to its Content-Encoding.
+     */
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(response.body(), LinkExtractor.BUFFER_SIZE);
+            case "deflate":
+                return new InflaterInputStream(response.body());
+            case "identity":
+            case "":
+                return response.body();
+            default:
+                response.body().close();
+                throw new IOException("Unsupported Content-Encoding " + encoding + " for " + response.uri());
+        }
+    }
+
+    /**
+     * Fetches a page with a new HttpURLConnection, uncompressed and without timeouts, as the crawler used to;
+     * the baseline of the benchmark.
+     */
+    private static LinkExtractor.Page fetchWithUrlConnection(String url, LinkExtractor extractor) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            return extractor.extract(in, URI.create(url));
+        }
+    }
+
+    /**
+     * Fetches every page of a local synthetic site and reports pages per second for the old HttpURLConnection
+     * fetch, blocking HttpClient fetches and asynchronous HttpClient pipelines, each with the same number of
+     * requests in flight.
+     * @param args Optional number of pages (default 20000) and requests in flight (default 32)
+     * @throws Exception If the local server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        System.setProperty("http.maxConnections", String.valueOf(inFlight)); // Keep-alive cache of HttpURLConnection
+        ExecutorService executor = CrawlerEngine.newFetchExecutor();
+        try (SyntheticSite site = new SyntheticSite(pages, 4)) {
+            HttpFetcher fetcher = new HttpFetcher(executor);
+            for (int round = 0; round < 2; round++) { // The first round warms up the JIT and the connection pools
+                for (String mode : new String[] {"HttpURLConnection", "HttpClient blocking", "HttpClient async"}) {
+                    Semaphore slots = new Semaphore(inFlight);
+                    LongAdder links = new LongAdder(), failures = new LongAdder();
+                    long start = System.nanoTime();
+                    for (int page = 0; page < pages; page++) {
+                        slots.acquire();
+                        String url = site.url(page);
+                        if (mode.equals("HttpClient async")) {
+                            fetcher.fetchAsync(url).whenComplete((result, error) -> {
+                                if (error == null) {
+                                    links.add(result.links.size());
+                                } else {
+                                    failures.increment();
+                                }
+                                slots.release();
+                            });
+                        } else {
+                            executor.execute(() -> {
+                                try {
+                                    LinkExtractor.Page result = mode.equals("HttpClient blocking")
+                                            ? fetcher.fetch(url) : fetchWithUrlConnection(url, new LinkExtractor());
+                                    links.add(result.links.size());
+                                } catch (Exception e) {
+                                    failures.increment();
+                                } finally {
+                                    slots.release();
+                                }
+                            });
+                        }
+                    }
+                    slots.acquire(inFlight); // Wait for the last requests
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    if (round == 1) {
+                        System.out.printf("%-20s %d pages (%d failed, %d links) in %.1f s, %.0f pages/s%n",
+                                mode, pages - failures.sum(), failures.sum(), links.sum(), seconds, pages / seconds);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
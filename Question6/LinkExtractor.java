@@ -0,0 +1,422 @@
+package Question6;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Streaming HTML scanner that finds the page title and all href values in one pass over the response bytes.
+ * It reads through one fixed-size buffer and runs a small state machine over the bytes, so the page is never
+ * held in memory or turned into a String; only the title and link values are decoded. Attribute values may
+ * use double quotes, single quotes or no quotes, comments are skipped, and relative links are resolved
+ * against the page URL. An extractor keeps its buffers between pages and is used by one thread at a time.
+ * The contents of script and style elements are raw text up to their end tag, as in browsers: a '<' in a script
+ * does not start a tag, and neither links nor words are taken from them.
+ * The same pass computes a 64-bit SimHash of the visible text: every shingle of three consecutive words is
+ * hashed, each of its bits votes on the matching bit of the SimHash, and the majority wins. Pages with mostly
+ * the same text get SimHashes that differ in only a few bits.
+ */
+class LinkExtractor {
+
+    static final int BUFFER_SIZE = 8192; // Bytes read from the stream at once
+    private static final int MAX_VALUE = 4096; // Longer titles are cut, longer links are dropped
+    private static final int MAX_NAME = 16; // Longer tag and attribute names are never "title" or "href"
+    private static final int MIN_SHINGLES = 4; // Pages with less text get no SimHash
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Title and links of one page.
+     */
+    static class Page {
+        final String title; // "No Title" if the page has none
+        final Set<String> links; // Absolute http(s) URLs without fragment, in page order
+        final long simHash; // SimHash of the visible text, 0 if the page has too little text
+
+        Page(String title, Set<String> links, long simHash) {
+            this.title = title;
+            this.links = links;
+            this.simHash = simHash;
+        }
+    }
+
+    // Scanner states
+    private static final int TEXT = 0, TAG_OPEN = 1, TAG_NAME = 2, ATTRIBUTES = 3, ATTRIBUTE_NAME = 4,
+            AFTER_ATTRIBUTE_NAME = 5, BEFORE_VALUE = 6, DOUBLE_QUOTED = 7, SINGLE_QUOTED = 8, UNQUOTED = 9,
+            COMMENT = 10, DECLARATION = 11, RAW_TEXT = 12;
+
+    private static final byte[] TITLE = "title".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HREF = "href".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SCRIPT = "script".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STYLE = "style".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] name = new byte[MAX_NAME]; // Lower-case tag or attribute name being read
+    private final byte[] value = new byte[MAX_VALUE]; // href value or title text being read
+    private final byte[] tag = new byte[MAX_NAME]; // Name of the current tag
+    private int nameLength, valueLength, tagLength;
+    private boolean closingTag; // Current tag is </...>
+    private boolean captureValue; // Current attribute is href
+    private boolean inTitle; // Between <title> and </title>
+    private boolean valueOverflow;
+    private int dashes; // Consecutive '-' at the end of a comment
+    private String title; // First title of the page, set when it closes
+    private byte[] rawText; // SCRIPT or STYLE while in its contents, null elsewhere
+    private int rawMatched; // Bytes of "</" and the raw text element's name matched so far
+    private final int[] votes = new int[64]; // Per SimHash bit: shingles with the bit set minus those without
+    private long word; // FNV-1a hash of the word being read
+    private int wordLength;
+    private long previousWord, olderWord; // Hashes of the last two words
+    private int words, shingles;
+
+    /**
+     * Scans a page.
+     * @param in The response body, read to the end but not closed
+     * @param base URL of the page, for resolving relative links
+     * @return The title and links of the page
+     * @throws IOException If reading fails
+     */
+    Page extract(InputStream in, URI base) throws IOException {
+        Set<String> links = new LinkedHashSet<>();
+        int state = TEXT;
+        title = null;
+        inTitle = false;
+        rawText = null;
+        Arrays.fill(votes, 0);
+        word = FNV_OFFSET;
+        wordLength = words = shingles = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                switch (state) {
+                    case TEXT:
+                        if (b == '<') {
+                            endWord(); // Tags separate words
+                            state = TAG_OPEN;
+                        } else {
+                            if (inTitle) {
+                                append(b);
+                            }
+                            text(b);
+                        }
+                        break;
+                    case TAG_OPEN:
+                        closingTag = b == '/';
+                        tagLength = 0;
+                        if (b == '!') {
+                            state = DECLARATION; // Comment if it starts with "--", checked below
+                            dashes = 0;
+                        } else if (closingTag) {
+                            state = TAG_NAME;
+                        } else if (isLetter(b)) {
+                            tag[tagLength++] = lower(b);
+                            state = TAG_NAME;
+                        } else { // A lone '<' in text
+                            if (inTitle) {
+                                append((byte) '<');
+                                append(b);
+                            }
+                            state = TEXT;
+                        }
+                        break;
+                    case TAG_NAME:
+                        if (b == '>') {
+                            state = endTag();
+                        } else if (isSpace(b) || b == '/') {
+                            state = ATTRIBUTES;
+                        } else if (tagLength < MAX_NAME) {
+                            tag[tagLength++] = lower(b);
+                        }
+                        break;
+                    case ATTRIBUTES:
+                    case AFTER_ATTRIBUTE_NAME:
+                        if (b == '>') {
+                            state = endTag();
+                        } else if (b == '=' && state == AFTER_ATTRIBUTE_NAME) {
+                            state = BEFORE_VALUE;
+                        } else if (!isSpace(b) && b != '/') {
+                            nameLength = 0;
+                            name[nameLength++] = lower(b);
+                            state = ATTRIBUTE_NAME;
+                        }
+                        break;
+                    case ATTRIBUTE_NAME:
+                        if (b == '=') {
+                            state = BEFORE_VALUE;
+                        } else if (b == '>') {
+                            state = endTag();
+                        } else if (isSpace(b) || b == '/') {
+                            state = AFTER_ATTRIBUTE_NAME;
+                        } else if (nameLength < MAX_NAME) {
+                            name[nameLength++] = lower(b);
+                        }
+                        break;
+                    case BEFORE_VALUE:
+                        if (isSpace(b)) {
+                            break;
+                        }
+                        captureValue = !closingTag && equals(name, nameLength, HREF);
+                        valueLength = 0;
+                        valueOverflow = false;
+                        if (b == '"') {
+                            state = DOUBLE_QUOTED;
+                        } else if (b == '\'') {
+                            state = SINGLE_QUOTED;
+                        } else if (b == '>') {
+                            state = endTag();
+                        } else {
+                            capture(b);
+                            state = UNQUOTED;
+                        }
+                        break;
+                    case DOUBLE_QUOTED:
+                    case SINGLE_QUOTED:
+                        if (b == (state == DOUBLE_QUOTED ? '"' : '\'')) {
+                            endValue(base, links);
+                            state = ATTRIBUTES;
+                        } else {
+                            capture(b);
+                        }
+                        break;
+                    case UNQUOTED:
+                        if (isSpace(b) || b == '>') {
+                            endValue(base, links);
+                            state = b == '>' ? endTag() : ATTRIBUTES;
+                        } else {
+                            capture(b);
+                        }
+                        break;
+                    case DECLARATION: // <!DOCTYPE ...> or, after "<!--", a comment
+                        if (b == '-' && ++dashes == 2) {
+                            state = COMMENT;
+                            dashes = 0;
+                        } else if (b == '>') {
+                            state = TEXT;
+                        } else if (b != '-') {
+                            dashes = -100; // Not a comment: never reaches 2
+                        }
+                        break;
+                    case COMMENT:
+                        if (b == '>' && dashes >= 2) {
+                            state = TEXT;
+                        }
+                        dashes = b == '-' ? dashes + 1 : 0;
+                        break;
+                    case RAW_TEXT: // Script or style contents: only the matching end tag is recognized
+                        if (rawMatched == rawText.length + 2) { // "</script" read, the name has to end here
+                            rawMatched = 0;
+                            if (isSpace(b) || b == '/' || b == '>') {
+                                closingTag = true;
+                                tagLength = rawText.length;
+                                System.arraycopy(rawText, 0, tag, 0, tagLength);
+                                state = b == '>' ? endTag() : ATTRIBUTES;
+                                break;
+                            }
+                        }
+                        if (b == '<') {
+                            rawMatched = 1;
+                        } else if (rawMatched == 1 && b == '/' || rawMatched >= 2 && lower(b) == rawText[rawMatched - 2]) {
+                            rawMatched++;
+                        } else {
+                            rawMatched = 0;
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown state " + state);
+                }
+            }
+        }
+        endWord();
+        return new Page(title == null ? "No Title" : title, links, simHash());
+    }
+
+    /**
+     * Adds a byte of visible text to the current word, or ends the word. Letters are compared lower-case,
+     * and bytes of multi-byte UTF-8 characters count as letters.
+     */
+    private void text(byte b) {
+        if (isLetter(b) || (b >= '0' && b <= '9') || b < 0) {
+            word = (word ^ lower(b)) * FNV_PRIME;
+            wordLength++;
+        } else {
+            endWord();
+        }
+    }
+
+    /**
+     * Ends the current word and, from the third word on, votes with the shingle of the last three words.
+     */
+    private void endWord() {
+        if (wordLength == 0) {
+            return;
+        }
+        if (++words >= 3) {
+            long shingle = olderWord * 0x9e3779b97f4a7c15L + previousWord * 31 + word;
+            shingle ^= shingle >>> 33; // MurmurHash3 finalizer: every input bit affects every output bit
+            shingle *= 0xff51afd7ed558ccdL;
+            shingle ^= shingle >>> 33;
+            shingle *= 0xc4ceb9fe1a85ec53L;
+            shingle ^= shingle >>> 33;
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += (int) (shingle >>> bit & 1) * 2 - 1;
+            }
+            shingles++;
+        }
+        olderWord = previousWord;
+        previousWord = word;
+        word = FNV_OFFSET;
+        wordLength = 0;
+    }
+
+    /**
+     * Returns the SimHash of the page's text: the bits most shingles voted for.
+     */
+    private long simHash() {
+        if (shingles < MIN_SHINGLES) {
+            return 0;
+        }
+        long hash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Handles the end of a tag: starts or finishes the title, or starts the raw text of a script or style.
+     * @return The state after the tag
+     */
+    private int endTag() {
+        boolean script = equals(tag, tagLength, SCRIPT);
+        if (!closingTag && (script || equals(tag, tagLength, STYLE))) {
+            rawText = script ? SCRIPT : STYLE;
+            rawMatched = 0;
+            return RAW_TEXT;
+        }
+        rawText = null;
+        if (equals(tag, tagLength, TITLE)) {
+            if (!closingTag && title == null) {
+                inTitle = true;
+                valueLength = 0;
+                valueOverflow = false;
+            } else if (closingTag && inTitle) {
+                inTitle = false;
+                title = new String(value, 0, valueLength, StandardCharsets.UTF_8).trim();
+            }
+        }
+        return TEXT;
+    }
+
+    /**
+     * Appends a byte of the title text.
+     */
+    private void append(byte b) {
+        if (valueLength < MAX_VALUE) {
+            value[valueLength++] = b;
+        }
+    }
+
+    /**
+     * Appends a byte of an href value.
+     */
+    private void capture(byte b) {
+        if (!captureValue) {
+            return;
+        }
+        if (valueLength < MAX_VALUE) {
+            value[valueLength++] = b;
+        } else {
+            valueOverflow = true;
+        }
+    }
+
+    /**
+     * Resolves a finished href value against the page URL and keeps it if it is an http(s) URL.
+     */
+    private void endValue(URI base, Set<String> links) {
+        if (!captureValue || valueOverflow || valueLength == 0) {
+            return;
+        }
+        String href = new String(value, 0, valueLength, StandardCharsets.UTF_8).trim().replace("&amp;", "&");
+        try {
+            URI resolved = base.resolve(href);
+            String scheme = resolved.getScheme();
+            if (scheme != null && (scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https")) && resolved.getHost() != null) {
+                String link = resolved.toString();
+                int fragment = link.indexOf('#');
+                links.add(fragment < 0 ? link : link.substring(0, fragment));
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a valid URL (spaces, bad escapes): skip the link
+        }
+    }
+
+    private static boolean equals(byte[] bytes, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    /**
+     * Checks the extractor on small pages: the ways a link can be written, comments, and script and style
+     * contents holding '<', end tag look-alikes and links in strings, which must neither end the raw text early
+     * nor swallow the visible text after it.
+     * @param args Not used
+     * @throws IOException Never, the pages are in memory
+     */
+    public static void main(String[] args) throws IOException {
+        LinkExtractor extractor = new LinkExtractor();
+        URI base = URI.create("http://h.example/dir/page");
+        String header = "<html><head><title>News</title><script>if (a<b && c>d) { x = '<a href=\"/js\">'; }"
+                + " y = '</scripts>';</script><style>p>a { color: red }</style><script>for (i = 0; i<n; i++) {}</script>"
+                + "</head><body>";
+        Page links = extractor.extract(in(header + "<a href=\"/a#top\">a</a> <A HREF='b'>b</A> <a href=c?x=1&amp;y=2>c</a>"
+                + "<!-- <a href=\"/hidden\"> --><a href=\"mailto:me@h.example\">mail</a></body></html>"), base);
+        check("title", links.title, "News");
+        check("links", links.links.toString(), "[http://h.example/a, http://h.example/dir/b, http://h.example/dir/c?x=1&y=2]");
+        Page first = extractor.extract(in(header + "<p>The quick brown fox jumps over the lazy dog near the river bank"
+                + " <a href=\"/fox\">fox</a></p></body>"), base);
+        Page second = extractor.extract(in(header + "<p>Compilers allocate registers and schedule instructions for modern"
+                + " processors <a href=\"/cc\">cc</a></p></body>"), base);
+        check("text after a script", first.links.toString(), "[http://h.example/fox]");
+        check("different text, different SimHash",
+                String.valueOf(Long.bitCount(first.simHash ^ second.simHash) > SimHashIndex.MAX_DISTANCE), "true");
+        Page upper = extractor.extract(in("<SCRIPT type=x>var s = '<p>';</SCRIPT ><p>one two three four five six seven</p>"), base);
+        Page plain = extractor.extract(in("<p>one two three four five six seven</p>"), base);
+        check("upper-case end tag", Long.toHexString(upper.simHash), Long.toHexString(plain.simHash));
+    }
+
+    private static InputStream in(String html) {
+        return new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void check(String name, String actual, String expected) {
+        boolean ok = actual.equals(expected);
+        System.out.println((ok ? "ok   " : "FAIL ") + name + ": " + actual + (ok ? "" : ", expected " + expected));
+    }
+}
@@ -0,0 +1,242 @@
+package Question6;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of the robots.txt rules of every host. The first lookup for a host fetches and parses its robots.txt;
+ * threads asking for the same host meanwhile wait for that one fetch. Entries expire after a TTL and are then
+ * fetched again, and expired entries are swept out every SWEEP_INTERVAL lookups, so a crawl over many hosts does
+ * not keep the rules of hosts it has left. Following RFC 9309, a missing robots.txt (4xx) allows everything and
+ * an unreachable one (5xx, network error) disallows everything until it is retried after ERROR_TTL.
+ */
+class RobotsCache {
+
+    static final Duration DEFAULT_TTL = Duration.ofHours(24);
+    static final Duration ERROR_TTL = Duration.ofMinutes(5); // Until an unreachable robots.txt is retried
+    private static final int MAX_BYTES = 500 * 1024; // Longer files are cut, as RFC 9309 allows
+    private static final int SWEEP_INTERVAL = 4096; // Lookups between sweeps of expired entries
+    private static final double MAX_CRAWL_DELAY = 60; // Seconds; longer delays would stall the crawl's end
+
+    /**
+     * The rules of one host for this crawler.
+     */
+    static class Rules {
+        static final Rules ALLOW_ALL = new Rules(new ArrayList<>(), new ArrayList<>(), 0);
+        static final Rules DISALLOW_ALL = new Rules(new ArrayList<>(), List.of("/"), 0);
+
+        private final List<String> allow; // Path patterns with '*' wildcards and an optional '$' end anchor
+        private final List<String> disallow;
+        final double crawlDelay; // Seconds between requests, 0 if not given
+
+        private Rules(List<String> allow, List<String> disallow, double crawlDelay) {
+            this.allow = allow;
+            this.disallow = disallow;
+            this.crawlDelay = crawlDelay;
+        }
+
+        /**
+         * Parses a robots.txt file. The groups naming the agent are used, otherwise the groups for "*".
+         * @param text The file
+         * @param agent User agent of the crawler; its product token (before any '/') is matched case-insensitively
+         * @return The rules for the agent
+         */
+        static Rules parse(String text, String agent) {
+            String product = agent.split("/", 2)[0].trim();
+            List<String> allow = new ArrayList<>(), disallow = new ArrayList<>();
+            List<String> anyAllow = new ArrayList<>(), anyDisallow = new ArrayList<>();
+            double delay = 0, anyDelay = 0;
+            boolean named = false; // Some group names the agent
+            boolean forAgent = false, forAny = false; // The current group applies to the agent or to "*"
+            boolean inRules = false; // A rule line was read since the last User-agent line
+            for (String line : text.split("\r\n|\r|\n")) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = line.substring(colon + 1).trim();
+                if (key.equals("user-agent")) {
+                    if (inRules) { // A User-agent line after rules starts a new group
+                        forAgent = forAny = inRules = false;
+                    }
+                    String token = value.split("/", 2)[0].trim();
+                    if (token.equals("*")) {
+                        forAny = true;
+                    } else if (token.equalsIgnoreCase(product)) {
+                        forAgent = named = true;
+                    }
+                } else if (key.equals("allow") || key.equals("disallow") || key.equals("crawl-delay")) {
+                    inRules = true;
+                    if (key.equals("crawl-delay")) {
+                        double seconds = parseDelay(value);
+                        delay = forAgent ? Math.max(delay, seconds) : delay;
+                        anyDelay = forAny ? Math.max(anyDelay, seconds) : anyDelay;
+                    } else if (!value.isEmpty()) { // An empty Disallow allows everything
+                        if (forAgent) {
+                            (key.equals("allow") ? allow : disallow).add(value);
+                        }
+                        if (forAny) {
+                            (key.equals("allow") ? anyAllow : anyDisallow).add(value);
+                        }
+                    }
+                }
+            }
+            return named ? new Rules(allow, disallow, delay) : new Rules(anyAllow, anyDisallow, anyDelay);
+        }
+
+        private static double parseDelay(String value) {
+            try {
+                double seconds = Double.parseDouble(value);
+                return seconds > 0 ? Math.min(seconds, MAX_CRAWL_DELAY) : 0; // Also 0 for NaN
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        /**
+         * Checks whether the crawler may fetch a URL: the longest matching pattern decides, Allow winning ties.
+         * @param url The URL
+         * @return true if it may be fetched
+         */
+        boolean allows(URI url) {
+            String path = url.getRawPath() == null || url.getRawPath().isEmpty() ? "/" : url.getRawPath();
+            if (url.getRawQuery() != null) {
+                path += "?" + url.getRawQuery();
+            }
+            if (path.equals("/robots.txt")) {
+                return true;
+            }
+            int allowed = longestMatch(allow, path), disallowed = longestMatch(disallow, path);
+            return allowed >= disallowed;
+        }
+
+        private static int longestMatch(List<String> patterns, String path) {
+            int longest = -1;
+            for (String pattern : patterns) {
+                if (pattern.length() > longest && matches(pattern, path)) {
+                    longest = pattern.length();
+                }
+            }
+            return longest;
+        }
+
+        /**
+         * Matches a path against a pattern: '*' matches any characters, a final '$' anchors the end, and
+         * otherwise the pattern only has to match a prefix of the path.
+         */
+        static boolean matches(String pattern, String path) {
+            boolean anchored = pattern.endsWith("$");
+            int end = anchored ? pattern.length() - 1 : pattern.length();
+            int p = 0, s = 0;
+            int star = -1, starMatch = 0; // Last '*' seen and the path position it matched up to
+            while (s < path.length()) {
+                if (p < end && pattern.charAt(p) == '*') {
+                    star = p++;
+                    starMatch = s;
+                } else if (p < end && pattern.charAt(p) == path.charAt(s)) {
+                    p++;
+                    s++;
+                } else if (p == end && !anchored) {
+                    return true; // The whole pattern matched a prefix
+                } else if (star >= 0) { // Let the last '*' match one more character
+                    p = star + 1;
+                    s = ++starMatch;
+                } else {
+                    return false;
+                }
+            }
+            while (p < end && pattern.charAt(p) == '*') {
+                p++;
+            }
+            return p == end;
+        }
+    }
+
+    /**
+     * Cached rules of one host, loaded by the first thread that claims it.
+     */
+    private static class Entry {
+        final CompletableFuture<Rules> rules = new CompletableFuture<>();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        volatile long expiresAt; // System.nanoTime() after which the entry is reloaded, set once loaded
+    }
+
+    private final HttpFetcher fetcher;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>(); // scheme://host:port -> its rules
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    /**
+     * Creates an empty cache.
+     * @param fetcher Fetches the robots.txt files
+     * @param ttl How long fetched rules are used
+     */
+    RobotsCache(HttpFetcher fetcher, Duration ttl) {
+        this.fetcher = fetcher;
+        ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the rules of a URL's host, fetching its robots.txt if they are not cached or expired.
+     * @param url The URL
+     * @return The rules
+     * @throws InterruptedException If interrupted while fetching or waiting for another thread's fetch
+     */
+    Rules rules(URI url) throws InterruptedException {
+        long now = System.nanoTime();
+        if (lookups.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            entries.values().removeIf(entry -> entry.rules.isDone() && now - entry.expiresAt > 0);
+        }
+        String origin = url.getScheme() + "://" + url.getRawAuthority();
+        Entry entry = entries.compute(origin, (key, old) ->
+                old == null || (old.rules.isDone() && now - old.expiresAt > 0) ? new Entry() : old);
+        if (entry.claimed.compareAndSet(false, true)) {
+            load(origin, entry);
+        }
+        try {
+            return entry.rules.get();
+        } catch (ExecutionException e) {
+            return Rules.DISALLOW_ALL; // Not reached: load() always completes normally
+        }
+    }
+
+    private void load(String origin, Entry entry) throws InterruptedException {
+        Rules rules;
+        long ttl = ttlNanos;
+        try {
+            String text = fetcher.fetchText(origin + "/robots.txt", MAX_BYTES);
+            rules = text == null ? Rules.ALLOW_ALL : Rules.parse(text, HttpFetcher.USER_AGENT);
+        } catch (InterruptedException e) {
+            entries.remove(origin, entry); // Let the next lookup retry
+            entry.rules.complete(Rules.DISALLOW_ALL); // Releases the waiting threads
+            throw e;
+        } catch (Exception e) {
+            rules = Rules.DISALLOW_ALL;
+            ttl = ERROR_TTL.toNanos();
+        }
+        entry.expiresAt = System.nanoTime() + ttl;
+        entry.rules.complete(rules);
+    }
+
+    /**
+     * Returns the number of hosts with cached rules.
+     * @return The number of hosts
+     */
+    int size() {
+        return entries.size();
+    }
+}
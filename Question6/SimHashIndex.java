@@ -0,0 +1,85 @@
+package Question6;
+
+import java.util.Arrays;
+
+/**
+ * Set of page SimHashes that finds near-duplicates: SimHashes differing in at most MAX_DISTANCE of their 64
+ * bits, the threshold Manku, Jain and Das Sarma found right for web pages. The 64 bits are cut into
+ * MAX_DISTANCE + 1 blocks of 16 bits; two SimHashes within the distance differ in at most MAX_DISTANCE blocks,
+ * so they agree on at least one whole block. Every SimHash is therefore filed under each of its four blocks,
+ * and a lookup only compares against the SimHashes sharing one of its blocks instead of all of them.
+ * Lookups and inserts take one lock; they are a few dozen XOR and bit counts per page.
+ */
+class SimHashIndex {
+
+    static final int MAX_DISTANCE = 3; // Differing bits of near-duplicates
+    private static final int BLOCKS = MAX_DISTANCE + 1;
+    private static final int BLOCK_BITS = 64 / BLOCKS;
+
+    private final long[][][] buckets = new long[BLOCKS][1 << BLOCK_BITS][]; // Block, block value -> SimHashes
+    private final int[][] sizes = new int[BLOCKS][1 << BLOCK_BITS];
+    private long size;
+
+    /**
+     * Adds a SimHash unless a near-duplicate of it was added before.
+     * @param simHash The SimHash of a page
+     * @return true if it was added, false if it is a near-duplicate of an earlier page
+     */
+    synchronized boolean add(long simHash) {
+        for (int block = 0; block < BLOCKS; block++) {
+            int key = block(simHash, block);
+            long[] bucket = buckets[block][key];
+            for (int i = 0; i < sizes[block][key]; i++) {
+                if (Long.bitCount(bucket[i] ^ simHash) <= MAX_DISTANCE) {
+                    return false;
+                }
+            }
+        }
+        for (int block = 0; block < BLOCKS; block++) {
+            int key = block(simHash, block);
+            long[] bucket = buckets[block][key];
+            if (bucket == null) {
+                bucket = buckets[block][key] = new long[2];
+            } else if (sizes[block][key] == bucket.length) {
+                bucket = buckets[block][key] = Arrays.copyOf(bucket, bucket.length * 2);
+            }
+            bucket[sizes[block][key]++] = simHash;
+        }
+        size++;
+        return true;
+    }
+
+    private static int block(long simHash, int block) {
+        return (int) (simHash >>> (block * BLOCK_BITS)) & ((1 << BLOCK_BITS) - 1);
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Crawls a local synthetic site whose pages also answer under session parameters, with and without
+     * near-duplicate detection, and then crawls the plain site to check that no distinct page is taken for a
+     * near-duplicate.
+     * @param args Optional number of pages (default 5000)
+     * @throws Exception If the local server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        for (boolean sessionCopies : new boolean[] {true, false}) {
+            for (boolean deduplicate : sessionCopies ? new boolean[] {false, true} : new boolean[] {true}) {
+                try (SyntheticSite site = new SyntheticSite(pages, 4);
+                     CrawlerEngine engine = new CrawlerEngine(CrawlerEngine.DEFAULT_CONCURRENCY, CrawlerEngine.DEFAULT_PER_HOST, 10 * pages)) {
+                    site.setSessionCopies(sessionCopies);
+                    engine.setDeduplication(deduplicate);
+                    long start = System.nanoTime();
+                    engine.crawl(site.url(0));
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%s, deduplication %s: %d page requests for %d pages, %d near-duplicates, %.1f s%n",
+                            sessionCopies ? "session copies" : "plain site", deduplicate ? "on" : "off",
+                            site.pageRequests(), pages, engine.nearDuplicates(), seconds);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package Question6;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server serving a generated web site, so the crawlers can be run and measured offline.
+ * Page i is served at /page/i and links to pages i * fanOut + 1 .. i * fanOut + fanOut (so every page is
+ * reachable from page 0), back to page 0, and to one pseudo-random page, which gives the crawler duplicates
+ * to skip. The last two links are relative. Every page has a paragraph of pseudo-random words of its own,
+ * different on every site.
+ * Pages are gzip compressed for clients that accept it, and a robots.txt can be set.
+ * With session copies switched on, every page also links to a copy of itself with session parameters, and a
+ * copy passes its parameters on to all its links in reverse order: the same pages again under other URLs, the
+ * kind of duplicates that URL normalization and near-duplicate detection remove.
+ */
+class SyntheticSite implements AutoCloseable {
+
+    private static final int SERVER_THREADS = 16; // Threads answering requests
+    private static final int TEXT_WORDS = 40; // Words of a page's own paragraph
+    private static final int VOCABULARY = 5000; // Distinct words of the paragraphs
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int pages; // Number of pages of the site
+    private final int fanOut; // Links to new pages per page
+    private final String base; // http://127.0.0.1:port
+    private final LongAdder requests = new LongAdder(); // Requests answered so far
+    private final LongAdder pageRequests = new LongAdder(); // Pages served so far
+    private final AtomicLong firstPageAt = new AtomicLong(), lastPageAt = new AtomicLong(); // System.nanoTime() of page requests
+    private volatile String robots; // robots.txt, null to answer 404
+    private volatile boolean sessionCopies; // Pages link to copies of themselves with session parameters
+
+    /**
+     * Starts the server on a free loopback port.
+     * @param pages Number of pages of the site
+     * @param fanOut Links to new pages per page
+     * @throws IOException If the server cannot be started
+     */
+    SyntheticSite(int pages, int fanOut) throws IOException {
+        this.pages = pages;
+        this.fanOut = fanOut;
+        System.setProperty("sun.net.httpserver.nodelay", "true"); // Small responses would wait for delayed ACKs otherwise
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newFixedThreadPool(SERVER_THREADS, r -> {
+            Thread thread = new Thread(r, "synthetic-site");
+            thread.setDaemon(true); // Do not keep the application alive
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        base = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the absolute URL of a page.
+     * @param page Page number
+     * @return The page URL
+     */
+    String url(int page) {
+        return base + "/page/" + page;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    int pages() {
+        return pages;
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long pageRequests() {
+        return pageRequests.sum();
+    }
+
+    /**
+     * Returns the time between the first and the last page request (robots.txt is not counted).
+     * @return The time in nanoseconds, 0 before the second request
+     */
+    long pageRequestSpan() {
+        return firstPageAt.get() == 0 ? 0 : lastPageAt.get() - firstPageAt.get();
+    }
+
+    /**
+     * Sets the robots.txt served by the site.
+     * @param robots The file, or null to answer 404 like a site without one
+     */
+    void setRobots(String robots) {
+        this.robots = robots;
+    }
+
+    /**
+     * Switches the session copies of the pages on or off.
+     * @param sessionCopies true to link every page to a copy of itself with session parameters
+     */
+    void setSessionCopies(boolean sessionCopies) {
+        this.sessionCopies = sessionCopies;
+    }
+
+    /**
+     * Answers one request with the page's HTML or robots.txt, or 404 for unknown paths.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        String path = exchange.getRequestURI().getPath();
+        String robots = this.robots;
+        if (path.equals("/robots.txt") && robots != null) {
+            byte[] body = robots.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+        int page = -1;
+        if (path.startsWith("/page/")) {
+            try {
+                page = Integer.parseInt(path.substring(6));
+            } catch (NumberFormatException e) {
+                page = -1; // Not a page number
+            }
+        }
+        if (page < 0 || page >= pages) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        pageRequests.increment();
+        long now = System.nanoTime();
+        firstPageAt.compareAndSet(0, now);
+        lastPageAt.accumulateAndGet(now, Math::max);
+        byte[] body = render(page, exchange.getRequestURI().getRawQuery()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (accepted != null && accepted.contains("gzip")) { // Compress for clients that ask for it
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Generates the HTML of a page.
+     * @param query Query of the request, the session parameters of a copy, or null
+     */
+    private String render(int page, String query) {
+        String parameters = "";
+        if (query != null) { // A session copy: the same page, its links carry the parameters reversed
+            List<String> reversed = Arrays.asList(query.split("&"));
+            Collections.reverse(reversed);
+            parameters = "?" + String.join("&", reversed);
+        }
+        long children = Math.max(0, Math.min(fanOut, pages - 1 - (long) page * fanOut)); // Links to new pages
+        StringBuilder html = new StringBuilder((int) (512 + 64 * children));
+        html.append("<html>\n<head><title>Page ").append(page).append("</title></head>\n<body>\n");
+        html.append("<p>Synthetic page ").append(page).append(" of ").append(pages).append("</p>\n<p>");
+        SplittableRandom words = new SplittableRandom((long) port() << 32 | page); // Sites differ in their text
+        for (int i = 0; i < TEXT_WORDS; i++) {
+            html.append(i == 0 ? "" : " ").append('w').append(words.nextInt(VOCABULARY));
+        }
+        html.append("</p>\n");
+        for (int i = 1; i <= fanOut; i++) {
+            long child = (long) page * fanOut + i;
+            if (child < pages) {
+                html.append("<a href=\"").append(url((int) child)).append(parameters).append("\">child ").append(i).append("</a>\n");
+            }
+        }
+        html.append("<a href='/page/0").append(parameters).append("'>home</a>\n"); // Relative links in other quoting styles
+        html.append("<a href=").append((page * 7919L + 13) % pages).append(parameters).append(">related</a>\n");
+        if (sessionCopies) {
+            html.append("<a href=\"/page/").append(page).append(query == null ? "?sid=" + page + "&amp;lang=en" : parameters)
+                    .append("\">copy</a>\n");
+        }
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * Stops the server immediately.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
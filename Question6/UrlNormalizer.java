@@ -0,0 +1,88 @@
+package Question6;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Brings URLs to one canonical form, so that spellings of the same page are recognized as one URL by the seen
+ * set: the scheme and host are lower-cased, the default port and the fragment are dropped, "." and ".."
+ * segments are removed, an empty path becomes "/", percent-escapes of unreserved characters are decoded and
+ * the others upper-cased, and the query parameters are sorted by name (parameters with the same name keep their
+ * order). Sorting assumes that parameter order does not change the page, which holds for nearly all sites.
+ */
+class UrlNormalizer {
+
+    private static final Comparator<String> BY_NAME = Comparator.comparing(parameter -> {
+        int equals = parameter.indexOf('=');
+        return equals < 0 ? parameter : parameter.substring(0, equals);
+    });
+
+    /**
+     * Normalizes an absolute http(s) URL.
+     * @param url The URL
+     * @return The canonical form, or the URL unchanged if it is not an absolute hierarchical URL with a host
+     */
+    static String normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url).normalize(); // Removes "." and ".." segments
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.getScheme() == null || uri.isOpaque() || uri.getHost() == null) {
+            return url;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            normalized.append(escapes(uri.getRawUserInfo())).append('@');
+        }
+        normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            normalized.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        normalized.append(path == null || path.isEmpty() ? "/" : escapes(path));
+        String query = uri.getRawQuery();
+        if (query != null) {
+            String[] parameters = Arrays.stream(query.split("&")).filter(parameter -> !parameter.isEmpty()).toArray(String[]::new);
+            Arrays.sort(parameters, BY_NAME); // Stable
+            if (parameters.length > 0) {
+                normalized.append('?').append(escapes(String.join("&", parameters)));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Decodes percent-escapes of unreserved characters (letters, digits, '-', '.', '_', '~') and upper-cases the
+     * hex digits of the others.
+     */
+    private static String escapes(String part) {
+        if (part.indexOf('%') < 0) {
+            return part;
+        }
+        StringBuilder result = new StringBuilder(part.length());
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            int high, low;
+            if (c == '%' && i + 2 < part.length() && (high = Character.digit(part.charAt(i + 1), 16)) >= 0
+                    && (low = Character.digit(part.charAt(i + 2), 16)) >= 0) {
+                char decoded = (char) (high << 4 | low);
+                if (Character.isLetterOrDigit(decoded) && decoded < 128 || "-._~".indexOf(decoded) >= 0) {
+                    result.append(decoded);
+                } else {
+                    result.append('%').append(Character.toUpperCase(part.charAt(i + 1))).append(Character.toUpperCase(part.charAt(i + 2)));
+                }
+                i += 2;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
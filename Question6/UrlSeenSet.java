@@ -0,0 +1,179 @@
+package Question6;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent set of the URLs a crawler has already seen, storing a 64-bit fingerprint per URL instead of the
+ * URL string. The fingerprints live in one lock-free open-addressing table (linear probing, inserts by
+ * compare-and-set), so threads never wait for each other and memory is fixed up front at about 11 bytes per
+ * expected URL: 30 million URLs fit in about 320 MB, where a HashSet of the strings needs several GB.
+ * Two different URLs share a fingerprint with a probability of about n^2 / 2^65 (under 10^-4 for 50 million
+ * URLs); the second one is then treated as seen.
+ * An optional Bloom filter in front (one byte per expected URL) answers contains() for new URLs without
+ * touching the large table.
+ */
+class UrlSeenSet {
+
+    private static final long EMPTY = 0; // Marks a free slot; fingerprint 0 is stored as 1
+    private static final double MAX_LOAD = 0.75; // Table slots per expected URL: 1 / MAX_LOAD
+    private static final int BLOOM_BITS_PER_URL = 8; // About 2% false positives with 3 hash functions
+    private static final int BLOOM_HASHES = 3;
+
+    private final AtomicLongArray table; // Fingerprints, EMPTY for free slots
+    private final int mask; // table.length() - 1
+    private final AtomicLongArray bloom; // Bloom filter bits, null without a Bloom front
+    private final long bloomMask; // Number of Bloom bits - 1
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates an empty set.
+     * @param expectedUrls Maximum number of URLs the set has to hold
+     * @param bloomFront true to put a Bloom filter in front of the table
+     */
+    UrlSeenSet(int expectedUrls, boolean bloomFront) {
+        int capacity = powerOfTwo((long) Math.ceil(Math.max(expectedUrls, 1) / MAX_LOAD));
+        table = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        if (bloomFront) {
+            int words = powerOfTwo((long) Math.max(expectedUrls, 1) * BLOOM_BITS_PER_URL / 64);
+            bloom = new AtomicLongArray(words);
+            bloomMask = (long) words * 64 - 1;
+        } else {
+            bloom = null;
+            bloomMask = 0;
+        }
+    }
+
+    /**
+     * Returns the smallest power of two at least as large as n, for the table sizes.
+     */
+    private static int powerOfTwo(long n) {
+        if (n > 1 << 30) {
+            throw new IllegalArgumentException("Too many URLs for one set: " + n);
+        }
+        return n <= 1 ? 1 : Integer.highestOneBit((int) n - 1) << 1;
+    }
+
+    /**
+     * Computes the 64-bit fingerprint of a URL: FNV-1a over its characters, then the MurmurHash3 finalizer
+     * so that the low bits used for the table index are well mixed.
+     * @param url The URL
+     * @return The fingerprint, never EMPTY
+     */
+    static long fingerprint(CharSequence url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash = (hash ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * Adds a URL.
+     * @param url The URL
+     * @return true if the URL was not seen before
+     * @throws IllegalStateException If the table is full
+     */
+    boolean add(String url) {
+        return addFingerprint(fingerprint(url));
+    }
+
+    /**
+     * Adds a URL by its fingerprint, for example one read back from a log.
+     * @param fingerprint The fingerprint, as computed by {@link #fingerprint(CharSequence)}
+     * @return true if the fingerprint was not seen before
+     * @throws IllegalStateException If the table is full
+     */
+    boolean addFingerprint(long fingerprint) {
+        if (bloom != null) {
+            bloomAdd(fingerprint); // Before the table, so contains() never misses a URL that add() accepted
+        }
+        int slot = (int) fingerprint & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = table.get(slot);
+            if (current == fingerprint) {
+                return false;
+            }
+            if (current == EMPTY) {
+                if (table.compareAndSet(slot, EMPTY, fingerprint)) {
+                    size.increment();
+                    return true;
+                }
+                if (table.get(slot) == fingerprint) {
+                    return false; // Another thread added the same URL just now
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new IllegalStateException("URL seen set is full (" + table.length() + " slots)");
+    }
+
+    /**
+     * Checks whether a URL was added.
+     * @param url The URL
+     * @return true if it was added (or shares its fingerprint with a URL that was)
+     */
+    boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        if (bloom != null && !bloomMightContain(fingerprint)) {
+            return false; // Definitely new, the table is not touched
+        }
+        int slot = (int) fingerprint & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = table.get(slot);
+            if (current == fingerprint) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the Bloom bits of a fingerprint, using double hashing for the bit positions.
+     */
+    private void bloomAdd(long fingerprint) {
+        long step = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (fingerprint + i * step) & bloomMask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            long old;
+            while (((old = bloom.get(word)) & flag) == 0 && !bloom.compareAndSet(word, old, old | flag)) {
+                // Another bit of the same word was set concurrently: retry
+            }
+        }
+    }
+
+    private boolean bloomMightContain(long fingerprint) {
+        long step = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (fingerprint + i * step) & bloomMask;
+            if ((bloom.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long size() {
+        return size.sum();
+    }
+
+    /**
+     * Returns the memory used by the table and the Bloom filter.
+     * @return The size in bytes
+     */
+    long memoryBytes() {
+        return 8L * table.length() + (bloom == null ? 0 : 8L * bloom.length());
+    }
+}
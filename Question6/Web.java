@@ -1,120 +1,57 @@
 package Question6;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.*;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Multi-threaded web crawler that fetches web pages, extracts links, and crawls new pages.
+ * The crawl is coordinated by {@link CrawlerEngine}: it runs until every reachable page (up to MAX_PAGES) is
+ * crawled instead of for a fixed time. It is polite: no host gets more than HOST_RATE pages per second or its
+ * robots.txt Crawl-delay, and URLs disallowed by robots.txt are skipped. With --state, progress is saved in the
+ * given directory, so a crawl that dies resumes from its last checkpoint when started again with the same directory.
  */
 public class Web {
     
     private static final int THREAD_POOL_SIZE = 5; // Defines the number of threads for concurrent crawling
-    private static final Set<String> visitedUrls = new HashSet<>(); // Keeps track of visited URLs to prevent duplicate crawling
-    private static final ExecutorService threadPool = Executors.newFixedThreadPool(THREAD_POOL_SIZE); // Creates a fixed thread pool for managing tasks
-
-    public static void main(String[] args) {
-        String seedUrl = "https://example.com"; // Initial URL to start crawling
-        visitedUrls.add(seedUrl); // Adds the seed URL to the visited set to avoid revisiting
-        threadPool.submit(new CrawlTask(seedUrl)); // Submits the first URL to the thread pool for processing
-
-        try {
-            Thread.sleep(5000); // Allows the crawler to run for 5 seconds before stopping
-        } catch (InterruptedException e) {
-            e.printStackTrace(); // Prints an error if the sleep is interrupted
-        }
-        
-        threadPool.shutdown(); // Shuts down the thread pool to stop further task submissions
-    }
+    private static final int MAX_PAGES = 10_000; // Stops accepting new URLs after this many pages
+    private static final double HOST_RATE = 2; // Pages per second fetched from any one host
 
     /**
-     * Runnable task for crawling web pages.
+     * Crawls from the seed URL with a fixed pool of THREAD_POOL_SIZE threads, or with one thread per fetch and
+     * the engine's default limits when started with --engine.
+     *
+     * @param args Optional --engine, optional --state followed by the directory for the crawl's progress, and
+     *             an optional seed URL
      */
-    static class CrawlTask implements Runnable {
-        private final String url; // Stores the URL to be crawled
-
-        public CrawlTask(String url) {
-            this.url = url; // Assigns the URL to the instance variable
-        }
-
-        @Override
-        public void run() {
-            try {
-                String content = fetchWebPage(url); // Fetches web page content
-                String title = extractTitle(content); // Extracts the page title
-                System.out.println("Crawled: " + url + " -> Title: " + title); // Displays the crawled URL and title
-                
-                Set<String> newUrls = extractUrls(content); // Extracts links from the page
-                
-                for (String newUrl : newUrls) { // Iterates through extracted URLs
-                    synchronized (visitedUrls) { // Ensures thread-safe access to shared data
-                        if (!visitedUrls.contains(newUrl)) { // Checks if the URL has been visited
-                            visitedUrls.add(newUrl); // Marks URL as visited
-                            threadPool.submit(new CrawlTask(newUrl)); // Submits a new task to crawl the URL
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error crawling " + url + ": " + e.getMessage()); // Prints error message if crawling fails
-            }
-        }
-
-        /**
-         * Fetches the HTML content of a web page.
-         */
-        private String fetchWebPage(String url) throws IOException {
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection(); // Opens an HTTP connection
-            connection.setRequestMethod("GET"); // Sets HTTP method to GET
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream())); // Reads response
-            StringBuilder content = new StringBuilder(); // Stores the content of the page
-            String line;
-            
-            while ((line = reader.readLine()) != null) { // Reads line by line
-                content.append(line); // Appends each line to content
-            }
-            reader.close(); // Closes the reader
-            
-            return content.toString(); // Returns the fetched content as a string
-        }
-
-        /**
-         * Extracts the title of the web page from its HTML content.
-         */
-        private String extractTitle(String content) {
-            int titleStart = content.indexOf("<title>"); // Finds the start index of the <title> tag
-            int titleEnd = content.indexOf("</title>"); // Finds the end index of the </title> tag
-            
-            if (titleStart != -1 && titleEnd != -1) { // Checks if both title tags exist
-                return content.substring(titleStart + 7, titleEnd).trim(); // Extracts and returns the title
+    public static void main(String[] args) {
+        boolean engine = false;
+        Path stateDirectory = null; // Progress is only saved when a directory is given
+        String seedUrl = "https://example.com"; // Initial URL to start crawling
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--engine")) {
+                engine = true;
+            } else if (args[i].equals("--state") && i + 1 < args.length) {
+                stateDirectory = Path.of(args[++i]);
+            } else {
+                seedUrl = args[i];
             }
-            return "No Title"; // Returns a default message if no title is found
         }
-
-        /**
-         * Extracts all URLs from the HTML content by searching for 'href' attributes.
-         */
-        private Set<String> extractUrls(String content) {
-            Set<String> urls = new HashSet<>(); // Creates a set to store unique URLs
-            int hrefStart;
-            int hrefEnd = 0;
-            
-            while ((hrefStart = content.indexOf("href=\"", hrefEnd)) != -1) { // Finds occurrences of href="URL"
-                hrefEnd = content.indexOf("\"", hrefStart + 6); // Finds the closing quote of the href attribute
-                if (hrefEnd != -1) {
-                    String newUrl = content.substring(hrefStart + 6, hrefEnd); // Extracts the URL
-                    
-                    if (newUrl.startsWith("http")) { // Ensures only absolute URLs are added
-                        urls.add(newUrl); // Adds the URL to the set
-                    }
-                }
+        ExecutorService threadPool = engine ? CrawlerEngine.newFetchExecutor() : Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        int concurrency = engine ? CrawlerEngine.DEFAULT_CONCURRENCY : THREAD_POOL_SIZE;
+        int perHostLimit = engine ? CrawlerEngine.DEFAULT_PER_HOST : THREAD_POOL_SIZE;
+
+        try (CrawlerEngine crawler = new CrawlerEngine(threadPool, concurrency, perHostLimit, MAX_PAGES, HOST_RATE)) {
+            crawler.setPageListener((url, title) -> System.out.println("Crawled: " + url + " -> Title: " + title)); // Displays the crawled URL and title
+            if (stateDirectory != null && crawler.persistTo(stateDirectory, CrawlState.DEFAULT_INTERVAL)) {
+                System.out.println("Resuming the crawl saved in " + stateDirectory.toAbsolutePath() + "; the seed " + seedUrl + " is not used");
             }
-            return urls; // Returns the set of extracted URLs
-        }
+            crawler.crawl(seedUrl); // Returns once no crawled page has unvisited links left
+            System.out.println("Crawled " + crawler.crawled() + " pages, " + crawler.failed() + " failed, "
+                    + crawler.disallowed() + " disallowed by robots.txt, " + crawler.nearDuplicates() + " near-duplicates");
+        } catch (InterruptedException | IOException e) {
+            e.printStackTrace(); // Prints an error if the crawl is interrupted or its saved state cannot be read
+        } // Closing the crawler shuts down the thread pool
     }
 }